@@ -1,6 +1,7 @@
 package lowe.mike.snake;
 
 import com.badlogic.gdx.Game;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import lowe.mike.snake.screen.SplashScreen;
 import lowe.mike.snake.util.Assets;
@@ -18,17 +19,43 @@ public final class SnakeGame extends Game {
   public static final int WIDTH = 360;
   public static final int HEIGHT = 640;
 
+  private final String serverAddress;
   private SpriteBatch spriteBatch;
 
+  /**
+   * Creates a new {@code SnakeGame} instance that is played locally.
+   */
+  public SnakeGame() {
+    this(null);
+  }
+
+  /**
+   * Creates a new {@code SnakeGame} instance that is played on a server.
+   *
+   * @param serverAddress the server's host name, optionally followed by a colon and port number,
+   * or {@code null} to play locally
+   */
+  public SnakeGame(String serverAddress) {
+    this.serverAddress = serverAddress;
+  }
+
   @Override
   public void create() {
+    // screens ask for frames when they need them, which saves power while nothing is changing
+    Gdx.graphics.setContinuousRendering(false);
     State.initialise();
+    State.setServerAddress(serverAddress);
     Assets.initialise();
     ScreenManager.initialise(this);
     spriteBatch = new SpriteBatch();
     ScreenManager.setScreen(new SplashScreen(spriteBatch));
   }
 
+  @Override
+  public void resume() {
+    ScreenManager.resumeAllScreens();
+  }
+
   @Override
   public void dispose() {
     Assets.dispose();
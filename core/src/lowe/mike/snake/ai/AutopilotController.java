@@ -0,0 +1,133 @@
+package lowe.mike.snake.ai;
+
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.utils.TimeUtils;
+import lowe.mike.snake.simulation.Board;
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.Simulation;
+
+/**
+ * {@code AutopilotController} is a {@link Controller} that plans a path to the food with indexed
+ * A* from gdx-ai, avoiding the snake's body.
+ * <p>
+ * A path is kept and followed until the food moves or something blocks it, rather than planning
+ * again every tick. When there is no path to the food the snake follows its own tail, which buys
+ * time for a path to open up, and when there isn't one of those either it makes any move that
+ * doesn't immediately kill it.
+ * <p>
+ * Planning stops once the per-tick time budget runs out, in which case the snake makes a greedy
+ * move and planning starts again on the next tick, so it can keep up with the fastest tick rates.
+ *
+ * @author Mike Lowe
+ */
+public final class AutopilotController implements Controller {
+
+  public static final long DEFAULT_PLANNING_BUDGET = 1000000L;
+  public static final int MAXIMUM_CELLS = 1 << 16;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final GreedyController greedyController = new GreedyController();
+  private final DefaultGraphPath<BoardGraph.Node> path = new DefaultGraphPath<BoardGraph.Node>();
+  private final PathFinderRequest<BoardGraph.Node> request =
+      new PathFinderRequest<BoardGraph.Node>();
+  private long planningBudget = DEFAULT_PLANNING_BUDGET;
+  private BoardGraph graph;
+  private IndexedAStarPathFinder<BoardGraph.Node> pathFinder;
+  private int pathTarget = Simulation.NO_CELL;
+  private int pathIndex;
+
+  /**
+   * Sets the longest time to spend planning in a single tick.
+   *
+   * @param planningBudget time in nanoseconds
+   */
+  public void setPlanningBudget(long planningBudget) {
+    if (planningBudget <= 0L) {
+      throw new IllegalArgumentException("Planning budget must be positive");
+    }
+    this.planningBudget = planningBudget;
+  }
+
+  @Override
+  public void reset(Simulation simulation) {
+    // the graph only depends on the board, so is kept while the simulation is reused
+    if (graph == null || graph.getSimulation() != simulation) {
+      // the graph has a node for every cell, so is only built for boards the game can show
+      if (simulation.getBoard().getCellCount() > MAXIMUM_CELLS) {
+        throw new IllegalArgumentException("Board is too large for the autopilot");
+      }
+      graph = new BoardGraph(simulation);
+      pathFinder = new IndexedAStarPathFinder<BoardGraph.Node>(graph);
+    }
+    clearPath();
+  }
+
+  @Override
+  public Direction getDirection(Simulation simulation) {
+    if (graph == null || graph.getSimulation() != simulation) {
+      reset(simulation);
+    }
+    int head = simulation.getHeadCell();
+    int target = simulation.isBonusFoodShowing() ? simulation.getBonusFoodCell()
+        : simulation.getFoodCell();
+    if (!isPathValid(head, target)) {
+      long deadline = TimeUtils.nanoTime() + planningBudget;
+      if (!planPath(head, target, Simulation.NO_CELL, deadline) &&
+          !planPath(head, simulation.getTailCell(), simulation.getTailCell(), deadline)) {
+        clearPath();
+        return greedyController.getDirection(simulation);
+      }
+    }
+    return getDirection(simulation.getBoard(), head, path.get(pathIndex++).cell);
+  }
+
+  private boolean isPathValid(int head, int target) {
+    return target == pathTarget && pathIndex < path.getCount() &&
+        path.get(pathIndex - 1).cell == head && graph.isPassable(path.get(pathIndex).cell);
+  }
+
+  private boolean planPath(int head, int target, int passableCell, long deadline) {
+    long timeToRun = deadline - TimeUtils.nanoTime();
+    if (timeToRun <= 0L || target == Simulation.NO_CELL) {
+      return false;
+    }
+    graph.setPassableCell(passableCell);
+    path.clear();
+    request.startNode = graph.getNode(head);
+    request.endNode = graph.getNode(target);
+    request.heuristic = graph;
+    request.resultPath = path;
+    request.statusChanged = true;
+    request.pathFound = false;
+    boolean finished = pathFinder.search(request, timeToRun);
+    graph.setPassableCell(Simulation.NO_CELL);
+    // the tail can't be moved into directly as it hasn't moved out of the way yet
+    if (!finished || !request.pathFound || path.getCount() < 2 ||
+        !graph.isPassable(path.get(1).cell)) {
+      clearPath();
+      return false;
+    }
+    // only a path to the food is worth keeping, as the tail moves every tick
+    pathTarget = passableCell == Simulation.NO_CELL ? target : Simulation.NO_CELL;
+    pathIndex = 1;
+    return true;
+  }
+
+  private void clearPath() {
+    path.clear();
+    pathTarget = Simulation.NO_CELL;
+    pathIndex = 0;
+  }
+
+  private static Direction getDirection(Board board, int from, int to) {
+    for (Direction direction : DIRECTIONS) {
+      if (board.getNeighbour(from, direction) == to) {
+        return direction;
+      }
+    }
+    throw new IllegalStateException("Cells aren't next to each other");
+  }
+}
@@ -0,0 +1,122 @@
+package lowe.mike.snake.ai;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultConnection;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
+import com.badlogic.gdx.utils.Array;
+import lowe.mike.snake.simulation.Board;
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.Simulation;
+
+/**
+ * {@code BoardGraph} is an {@link IndexedGraph} over the cells of a {@link Board}, where each cell
+ * is connected to its neighbours in every {@link Direction}.
+ * <p>
+ * The nodes and connections are built once, and cells occupied by the snake are left out of
+ * {@link #getConnections(Node)} as the graph is searched, so it never needs rebuilding as the snake
+ * moves.
+ *
+ * @author Mike Lowe
+ */
+final class BoardGraph implements IndexedGraph<BoardGraph.Node>, Heuristic<BoardGraph.Node> {
+
+  /**
+   * A cell on the {@link Board}.
+   */
+  static final class Node {
+
+    final int cell;
+    final Array<Connection<Node>> connections = new Array<Connection<Node>>(4);
+
+    Node(int cell) {
+      this.cell = cell;
+    }
+  }
+
+  private final Simulation simulation;
+  private final Board board;
+  private final Node[] nodes;
+  // gdx-ai is finished with the connections of a node before asking for the next node's
+  private final Array<Connection<Node>> passableConnections = new Array<Connection<Node>>(4);
+  private int passableCell = Simulation.NO_CELL;
+
+  /**
+   * Creates a new {@code BoardGraph} instance.
+   *
+   * @param simulation the {@link Simulation} whose {@link Board} to search
+   */
+  BoardGraph(Simulation simulation) {
+    this.simulation = simulation;
+    this.board = simulation.getBoard();
+    this.nodes = new Node[board.getCellCount()];
+    for (int cell = 0; cell < nodes.length; cell++) {
+      nodes[cell] = new Node(cell);
+    }
+    for (Node node : nodes) {
+      for (Direction direction : Direction.values()) {
+        Node neighbour = nodes[board.getNeighbour(node.cell, direction)];
+        node.connections.add(new DefaultConnection<Node>(node, neighbour));
+      }
+    }
+  }
+
+  /**
+   * @return the {@link Simulation} this {@code BoardGraph} was built for
+   */
+  Simulation getSimulation() {
+    return simulation;
+  }
+
+  /**
+   * @param cell the cell
+   * @return the {@link Node} for the given cell
+   */
+  Node getNode(int cell) {
+    return nodes[cell];
+  }
+
+  /**
+   * Lets searches pass through the given cell even if the snake occupies it, such as the tail when
+   * following it.
+   *
+   * @param passableCell the cell, or {@link Simulation#NO_CELL}
+   */
+  void setPassableCell(int passableCell) {
+    this.passableCell = passableCell;
+  }
+
+  /**
+   * @param cell the cell
+   * @return if the snake can move into the given cell
+   */
+  boolean isPassable(int cell) {
+    return cell == passableCell || !board.isSnakeOccupying(cell);
+  }
+
+  @Override
+  public int getIndex(Node node) {
+    return node.cell;
+  }
+
+  @Override
+  public int getNodeCount() {
+    return nodes.length;
+  }
+
+  @Override
+  public Array<Connection<Node>> getConnections(Node fromNode) {
+    passableConnections.clear();
+    for (Connection<Node> connection : fromNode.connections) {
+      if (isPassable(connection.getToNode().cell)) {
+        passableConnections.add(connection);
+      }
+    }
+    return passableConnections;
+  }
+
+  @Override
+  public float estimate(Node node, Node endNode) {
+    return GreedyController.getDistance(simulation, node.cell, endNode.cell);
+  }
+}
@@ -0,0 +1,29 @@
+package lowe.mike.snake.ai;
+
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.Simulation;
+
+/**
+ * A {@code Controller} decides which way to steer the snake in a {@link Simulation}, in place of
+ * the player.
+ * <p>
+ * {@code Controller}s may keep state between ticks, so each game being played needs its own
+ * instance.
+ *
+ * @author Mike Lowe
+ */
+public interface Controller {
+
+  /**
+   * Called when the {@link Simulation} has been created or reset, before the first tick.
+   *
+   * @param simulation the {@link Simulation}
+   */
+  void reset(Simulation simulation);
+
+  /**
+   * @param simulation the {@link Simulation}
+   * @return the {@link Direction} to move the snake in on the next tick
+   */
+  Direction getDirection(Simulation simulation);
+}
@@ -0,0 +1,55 @@
+package lowe.mike.snake.ai;
+
+import lowe.mike.snake.simulation.Board;
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.Simulation;
+
+/**
+ * {@code GreedyController} is a {@link Controller} that heads straight for the food, only looking
+ * one cell ahead to avoid running into the snake.
+ *
+ * @author Mike Lowe
+ */
+public final class GreedyController implements Controller {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  @Override
+  public void reset(Simulation simulation) {
+  }
+
+  @Override
+  public Direction getDirection(Simulation simulation) {
+    Board board = simulation.getBoard();
+    int head = simulation.getHeadCell();
+    int target = simulation.isBonusFoodShowing() ? simulation.getBonusFoodCell()
+        : simulation.getFoodCell();
+    Direction best = simulation.getLastDirection();
+    int bestDistance = Integer.MAX_VALUE;
+    for (Direction direction : DIRECTIONS) {
+      if (!simulation.canTurn(direction)) {
+        continue;
+      }
+      int next = board.getNeighbour(head, direction);
+      if (board.isSnakeOccupying(next)) {
+        continue;
+      }
+      int distance = getDistance(simulation, next, target);
+      if (distance < bestDistance) {
+        best = direction;
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @return the number of moves between two cells, allowing for wrapping around the edges
+   */
+  static int getDistance(Simulation simulation, int from, int to) {
+    int columns = Math.abs(simulation.getColumn(from) - simulation.getColumn(to));
+    int rows = Math.abs(simulation.getRow(from) - simulation.getRow(to));
+    return Math.min(columns, simulation.getColumns() - columns) +
+        Math.min(rows, simulation.getRows() - rows);
+  }
+}
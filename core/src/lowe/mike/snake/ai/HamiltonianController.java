@@ -0,0 +1,86 @@
+package lowe.mike.snake.ai;
+
+import lowe.mike.snake.simulation.Board;
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.Simulation;
+
+/**
+ * {@code HamiltonianController} is a {@link Controller} that follows a {@link HamiltonianCycle}
+ * around the board, so it never dies and always fills the board completely.
+ * <p>
+ * While the snake is short it takes shortcuts across the cycle towards the food. A shortcut is
+ * only taken if it keeps the cells ahead of the head along the cycle in the same order as the
+ * snake, with room left for it to grow, so following the cycle afterwards is still safe. Once the
+ * snake covers half of the board it sticks to the cycle.
+ *
+ * @author Mike Lowe
+ */
+public final class HamiltonianController implements Controller {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+  // extra cells to leave behind the tail, in case food is eaten on the way
+  private static final int SHORTCUT_MARGIN = 4;
+
+  private HamiltonianCycle cycle;
+
+  @Override
+  public void reset(Simulation simulation) {
+    // the cycle only depends on the size of the board, so is kept between games
+    if (cycle == null || cycle.getColumns() != simulation.getColumns() ||
+        cycle.getRows() != simulation.getRows()) {
+      cycle = new HamiltonianCycle(simulation.getColumns(), simulation.getRows());
+    }
+  }
+
+  @Override
+  public Direction getDirection(Simulation simulation) {
+    reset(simulation);
+    Board board = simulation.getBoard();
+    int head = simulation.getHeadCell();
+    int headIndex = getIndex(simulation, head);
+
+    int tailDistance = simulation.getLength() == 1 ? cycle.getLength()
+        : getDistance(simulation, headIndex, simulation.getTailCell());
+    int targetDistance = getDistance(simulation, headIndex, simulation.getFoodCell());
+    if (simulation.isBonusFoodShowing()) {
+      targetDistance = Math.min(targetDistance,
+          getDistance(simulation, headIndex, simulation.getBonusFoodCell()));
+    }
+    int growth = simulation.getPendingGrowth() + SHORTCUT_MARGIN;
+    boolean canTakeShortcut = (simulation.getLength() + growth) * 2 < cycle.getLength();
+
+    Direction best = null;
+    int bestDistance = 0;
+    for (Direction direction : DIRECTIONS) {
+      if (!simulation.canTurn(direction)) {
+        continue;
+      }
+      int next = board.getNeighbour(head, direction);
+      if (board.isSnakeOccupying(next)) {
+        continue;
+      }
+      int distance = getDistance(simulation, headIndex, next);
+      boolean isAllowed = distance == 1 ||
+          (canTakeShortcut && distance <= targetDistance && distance < tailDistance - growth);
+      if (isAllowed && distance > bestDistance) {
+        best = direction;
+        bestDistance = distance;
+      }
+    }
+    // only happens if the snake has been steered off the cycle by something else
+    return best == null ? simulation.getLastDirection() : best;
+  }
+
+  private int getIndex(Simulation simulation, int cell) {
+    return cycle.getIndex(simulation.getColumn(cell), simulation.getRow(cell));
+  }
+
+  // how far ahead of the head the cell is along the cycle
+  private int getDistance(Simulation simulation, int headIndex, int cell) {
+    if (cell == Simulation.NO_CELL) {
+      return cycle.getLength();
+    }
+    int distance = getIndex(simulation, cell) - headIndex;
+    return distance < 0 ? distance + cycle.getLength() : distance;
+  }
+}
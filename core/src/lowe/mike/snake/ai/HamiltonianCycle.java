@@ -0,0 +1,88 @@
+package lowe.mike.snake.ai;
+
+/**
+ * {@code HamiltonianCycle} is a route that visits every cell of a board exactly once before
+ * returning to where it started.
+ * <p>
+ * The position of any cell along the route is worked out from its column and row in constant time
+ * rather than being stored, so the cycle costs nothing to keep for boards of any size. When one of
+ * the sides has an even length the route zigzags along the other side and comes back down the first
+ * column or row. When both sides are odd, the last row is walked between the first two cells of the
+ * route, using the board wrapping around its edges.
+ *
+ * @author Mike Lowe
+ */
+final class HamiltonianCycle {
+
+  private final int columns;
+  private final int rows;
+  private final boolean isTransposed;
+  private final boolean isLastRowSpliced;
+
+  /**
+   * Creates a new {@code HamiltonianCycle} instance.
+   *
+   * @param columns the number of columns on the board
+   * @param rows the number of rows on the board
+   */
+  HamiltonianCycle(int columns, int rows) {
+    this.columns = columns;
+    this.rows = rows;
+    this.isTransposed = rows % 2 == 1 && columns % 2 == 0;
+    this.isLastRowSpliced = rows % 2 == 1 && columns % 2 == 1;
+  }
+
+  /**
+   * @return the number of columns on the board
+   */
+  int getColumns() {
+    return columns;
+  }
+
+  /**
+   * @return the number of rows on the board
+   */
+  int getRows() {
+    return rows;
+  }
+
+  /**
+   * @return the number of cells along the cycle
+   */
+  int getLength() {
+    return columns * rows;
+  }
+
+  /**
+   * @param column the column
+   * @param row the row
+   * @return the position of the cell at the given column and row along the cycle
+   */
+  int getIndex(int column, int row) {
+    if (isTransposed) {
+      return getIndex(row, column, rows, columns);
+    }
+    if (!isLastRowSpliced) {
+      return getIndex(column, row, columns, rows);
+    }
+    if (row == rows - 1) {
+      // walked leftwards from the first column, wrapping around to finish at the second
+      return column == 0 ? 1 : 1 + columns - column;
+    }
+    int index = getIndex(column, row, columns, rows - 1);
+    return index == 0 ? 0 : index + columns;
+  }
+
+  // the cycle over a grid with an even height, without wrapping around the edges
+  private static int getIndex(int x, int y, int width, int height) {
+    if (y == 0) {
+      return x;
+    }
+    if (x == 0) {
+      // back down the first column
+      return width * height - y;
+    }
+    int index = width + (y - 1) * (width - 1);
+    return y % 2 == 1 ? index + width - 1 - x : index + x - 1;
+  }
+}
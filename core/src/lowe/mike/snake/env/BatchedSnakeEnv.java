@@ -0,0 +1,171 @@
+package lowe.mike.snake.env;
+
+import java.nio.ByteBuffer;
+import lowe.mike.snake.simulation.Simulation;
+import lowe.mike.snake.simulation.SplitMixRandom;
+
+/**
+ * {@code BatchedSnakeEnv} steps a fixed number of {@link SnakeEnv}-style environments together, so
+ * that a whole batch of actions can be applied and observed in one call.
+ * <p>
+ * Actions, rewards and done flags are exchanged as parallel primitive arrays indexed by
+ * environment, and the observations of all environments are written back to back into a single
+ * array or buffer. An environment whose episode ends is reset straight away with the next seed from
+ * the batch's own generator, so after a step {@link #getDones()} reports the episodes that just
+ * ended while the observations already show the episodes that replaced them.
+ *
+ * @author Mike Lowe
+ */
+public final class BatchedSnakeEnv {
+
+  private final Simulation[] simulations;
+  private final SplitMixRandom seeds = new SplitMixRandom(0L);
+  private final float[] rewards;
+  private final boolean[] dones;
+  private final int[] episodeScores;
+  private final long[] episodeTicks;
+  private final int observationSize;
+  private long maximumTicks = Long.MAX_VALUE;
+
+  /**
+   * Creates a new {@code BatchedSnakeEnv} instance. {@link #reset(long)} should be called before
+   * the first step.
+   *
+   * @param size the number of environments
+   * @param columns the number of columns on each board
+   * @param rows the number of rows on each board
+   * @param level the level, which sets the score for each food eaten
+   */
+  public BatchedSnakeEnv(int size, int columns, int rows, int level) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Size must be positive");
+    }
+    this.simulations = new Simulation[size];
+    for (int i = 0; i < size; i++) {
+      this.simulations[i] = new Simulation(columns, rows, level, 0L);
+    }
+    this.rewards = new float[size];
+    this.dones = new boolean[size];
+    this.episodeScores = new int[size];
+    this.episodeTicks = new long[size];
+    this.observationSize = Observations.getSize(this.simulations[0]);
+  }
+
+  /**
+   * Sets the number of ticks after which an episode is cut short.
+   *
+   * @param maximumTicks the maximum number of ticks in an episode
+   */
+  public void setMaximumTicks(long maximumTicks) {
+    if (maximumTicks < 1L) {
+      throw new IllegalArgumentException("Maximum ticks must be positive");
+    }
+    this.maximumTicks = maximumTicks;
+  }
+
+  /**
+   * @return the number of environments
+   */
+  public int getSize() {
+    return simulations.length;
+  }
+
+  /**
+   * @return the number of values in the observation of each environment
+   */
+  public int getObservationSize() {
+    return observationSize;
+  }
+
+  /**
+   * Starts a new episode in every environment.
+   *
+   * @param seed the seed that all of the episode seeds are drawn from
+   */
+  public void reset(long seed) {
+    seeds.setSeed(seed);
+    for (int i = 0; i < simulations.length; i++) {
+      simulations[i].reset(seeds.nextLong());
+      rewards[i] = 0f;
+      dones[i] = false;
+    }
+  }
+
+  /**
+   * Advances every environment by one tick.
+   *
+   * @param actions the ordinal of the {@link lowe.mike.snake.simulation.Direction} to move in, for
+   * each environment
+   */
+  public void step(int[] actions) {
+    if (actions.length < simulations.length) {
+      throw new IllegalArgumentException("An action is needed for every environment");
+    }
+    for (int i = 0; i < simulations.length; i++) {
+      Simulation simulation = simulations[i];
+      rewards[i] = SnakeEnv.step(simulation, actions[i]);
+      dones[i] = SnakeEnv.isDone(simulation, maximumTicks);
+      if (dones[i]) {
+        episodeScores[i] = simulation.getScore();
+        episodeTicks[i] = simulation.getTicks();
+        simulation.reset(seeds.nextLong());
+      }
+    }
+  }
+
+  /**
+   * @return the reward each environment got from the last step, which is reused between steps
+   */
+  public float[] getRewards() {
+    return rewards;
+  }
+
+  /**
+   * @return if the episode in each environment ended on the last step, which is reused between
+   * steps
+   */
+  public boolean[] getDones() {
+    return dones;
+  }
+
+  /**
+   * @return the final score of the last finished episode in each environment, which is reused
+   * between steps
+   */
+  public int[] getEpisodeScores() {
+    return episodeScores;
+  }
+
+  /**
+   * @return the length in ticks of the last finished episode in each environment, which is reused
+   * between steps
+   */
+  public long[] getEpisodeTicks() {
+    return episodeTicks;
+  }
+
+  /**
+   * Writes the observations of every environment into a {@code float} array, one after the other.
+   *
+   * @param observations the array to write to, with room for {@link #getSize()} times {@link
+   * #getObservationSize()} values from the offset
+   * @param offset the index to start writing at
+   */
+  public void getObservations(float[] observations, int offset) {
+    for (int i = 0; i < simulations.length; i++) {
+      Observations.write(simulations[i], observations, offset + i * observationSize);
+    }
+  }
+
+  /**
+   * Writes the observations of every environment into a {@link ByteBuffer}, one after the other
+   * and one byte per value, starting at its position and advancing it past the observations.
+   *
+   * @param observations the {@link ByteBuffer} to write to
+   */
+  public void getObservations(ByteBuffer observations) {
+    for (Simulation simulation : simulations) {
+      Observations.write(simulation, observations);
+    }
+  }
+}
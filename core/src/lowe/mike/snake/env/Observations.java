@@ -0,0 +1,85 @@
+package lowe.mike.snake.env;
+
+import java.nio.ByteBuffer;
+import lowe.mike.snake.simulation.Board;
+import lowe.mike.snake.simulation.Simulation;
+
+/**
+ * Writes the state of a {@link Simulation} out as an observation for a learning agent.
+ * <p>
+ * An observation is a stack of {@link #CHANNELS} planes, each with one value per cell of the board
+ * in cell order, marking the snake's body, the snake's head, the food and the bonus food with a
+ * {@code 1} and everything else with a {@code 0}.
+ *
+ * @author Mike Lowe
+ */
+final class Observations {
+
+  static final int CHANNELS = 4;
+
+  private static final int BODY_CHANNEL = 0;
+  private static final int HEAD_CHANNEL = 1;
+  private static final int FOOD_CHANNEL = 2;
+  private static final int BONUS_FOOD_CHANNEL = 3;
+
+  // don't want instances
+  private Observations() {
+  }
+
+  /**
+   * @param simulation the {@link Simulation}
+   * @return the number of values in an observation of the given {@link Simulation}
+   */
+  static int getSize(Simulation simulation) {
+    return CHANNELS * simulation.getBoard().getCellCount();
+  }
+
+  /**
+   * Writes an observation of the given {@link Simulation} into a {@code float} array.
+   *
+   * @param simulation the {@link Simulation}
+   * @param observation the array to write to
+   * @param offset the index to start writing at
+   */
+  static void write(Simulation simulation, float[] observation, int offset) {
+    Board board = simulation.getBoard();
+    int cellCount = board.getCellCount();
+    int head = simulation.getHeadCell();
+    for (int cell = 0; cell < cellCount; cell++) {
+      byte occupant = board.get(cell);
+      int index = offset + cell;
+      observation[index + BODY_CHANNEL * cellCount] = occupant == Board.SNAKE ? 1f : 0f;
+      observation[index + HEAD_CHANNEL * cellCount] = cell == head ? 1f : 0f;
+      observation[index + FOOD_CHANNEL * cellCount] = occupant == Board.FOOD ? 1f : 0f;
+      observation[index + BONUS_FOOD_CHANNEL * cellCount] = occupant == Board.BONUS_FOOD ? 1f : 0f;
+    }
+  }
+
+  /**
+   * Writes an observation of the given {@link Simulation} into a {@link ByteBuffer}, one byte per
+   * value, starting at its position and advancing it past the observation.
+   *
+   * @param simulation the {@link Simulation}
+   * @param observation the {@link ByteBuffer} to write to
+   */
+  static void write(Simulation simulation, ByteBuffer observation) {
+    Board board = simulation.getBoard();
+    int cellCount = board.getCellCount();
+    int head = simulation.getHeadCell();
+    int start = observation.position();
+    for (int cell = 0; cell < cellCount; cell++) {
+      byte occupant = board.get(cell);
+      int index = start + cell;
+      observation.put(index + BODY_CHANNEL * cellCount, toByte(occupant == Board.SNAKE));
+      observation.put(index + HEAD_CHANNEL * cellCount, toByte(cell == head));
+      observation.put(index + FOOD_CHANNEL * cellCount, toByte(occupant == Board.FOOD));
+      observation.put(index + BONUS_FOOD_CHANNEL * cellCount,
+          toByte(occupant == Board.BONUS_FOOD));
+    }
+    observation.position(start + CHANNELS * cellCount);
+  }
+
+  private static byte toByte(boolean value) {
+    return value ? (byte) 1 : (byte) 0;
+  }
+}
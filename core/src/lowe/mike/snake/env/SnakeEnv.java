@@ -0,0 +1,148 @@
+package lowe.mike.snake.env;
+
+import java.nio.ByteBuffer;
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.Simulation;
+
+/**
+ * {@code SnakeEnv} is a reinforcement learning environment for the game, in the style of a Gym
+ * environment.
+ * <p>
+ * An episode is started with {@link #reset(long)} and advanced with {@link #step(int)}, which
+ * returns the reward for the step, after which {@link #isDone()} says if the episode has ended. An
+ * episode that has ended must be reset before it can be stepped again. An action is the ordinal of
+ * the {@link Direction} to move in. Observations are written into arrays or buffers supplied by the
+ * caller, so nothing is allocated once the environment has been created.
+ * <p>
+ * The reward for a step is the increase in score, or {@link #DEATH_REWARD} if the snake died.
+ *
+ * @author Mike Lowe
+ */
+public final class SnakeEnv {
+
+  public static final int ACTION_COUNT = 4;
+  public static final int OBSERVATION_CHANNELS = Observations.CHANNELS;
+  public static final float DEATH_REWARD = -10f;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final Simulation simulation;
+  private long maximumTicks = Long.MAX_VALUE;
+
+  /**
+   * Creates a new {@code SnakeEnv} instance. {@link #reset(long)} should be called before the
+   * first step.
+   *
+   * @param columns the number of columns on the board
+   * @param rows the number of rows on the board
+   * @param level the level, which sets the score for each food eaten
+   */
+  public SnakeEnv(int columns, int rows, int level) {
+    this.simulation = new Simulation(columns, rows, level, 0L);
+  }
+
+  /**
+   * Sets the number of ticks after which an episode is cut short, so that agents which never die
+   * still finish episodes.
+   *
+   * @param maximumTicks the maximum number of ticks in an episode
+   */
+  public void setMaximumTicks(long maximumTicks) {
+    if (maximumTicks < 1L) {
+      throw new IllegalArgumentException("Maximum ticks must be positive");
+    }
+    this.maximumTicks = maximumTicks;
+  }
+
+  /**
+   * @return the {@link Simulation} being played
+   */
+  public Simulation getSimulation() {
+    return simulation;
+  }
+
+  /**
+   * @return the number of values in an observation
+   */
+  public int getObservationSize() {
+    return Observations.getSize(simulation);
+  }
+
+  /**
+   * Starts a new episode.
+   *
+   * @param seed the seed for the episode
+   */
+  public void reset(long seed) {
+    simulation.reset(seed);
+  }
+
+  /**
+   * Advances the episode by one tick.
+   *
+   * @param action the ordinal of the {@link Direction} to move in
+   * @return the reward for the step
+   * @throws IllegalStateException if the episode has ended and hasn't been reset
+   */
+  public float step(int action) {
+    if (isDone()) {
+      // stepping on would only repeat the reward for how the episode ended
+      throw new IllegalStateException("The episode has ended, so must be reset first");
+    }
+    return step(simulation, action);
+  }
+
+  /**
+   * @return if the episode has ended, because the snake died, the board was completed or the
+   * maximum number of ticks was reached
+   */
+  public boolean isDone() {
+    return isDone(simulation, maximumTicks);
+  }
+
+  /**
+   * Writes the current observation into a {@code float} array.
+   *
+   * @param observation the array to write to, with room for {@link #getObservationSize()} values
+   * from the offset
+   * @param offset the index to start writing at
+   */
+  public void getObservation(float[] observation, int offset) {
+    Observations.write(simulation, observation, offset);
+  }
+
+  /**
+   * Writes the current observation into a {@link ByteBuffer}, one byte per value, starting at its
+   * position and advancing it past the observation.
+   *
+   * @param observation the {@link ByteBuffer} to write to
+   */
+  public void getObservation(ByteBuffer observation) {
+    Observations.write(simulation, observation);
+  }
+
+  /**
+   * Steps the given {@link Simulation} with an action.
+   *
+   * @return the reward for the step
+   */
+  static float step(Simulation simulation, int action) {
+    if (action < 0 || action >= ACTION_COUNT) {
+      throw new IllegalArgumentException("Action must be between 0 and " + (ACTION_COUNT - 1));
+    }
+    int score = simulation.getScore();
+    simulation.step(DIRECTIONS[action]);
+    if (simulation.isSnakeDead()) {
+      return DEATH_REWARD;
+    }
+    return simulation.getScore() - score;
+  }
+
+  /**
+   * @return if the episode being played by the given {@link Simulation} has ended
+   */
+  static boolean isDone(Simulation simulation, long maximumTicks) {
+    return simulation.isSnakeDead() || simulation.isBoardComplete() ||
+        simulation.getTicks() >= maximumTicks;
+  }
+}
@@ -0,0 +1,125 @@
+package lowe.mike.snake.net;
+
+import lowe.mike.snake.simulation.Simulation;
+
+/**
+ * {@code DeltaEncoder} turns the ticks of a {@link Simulation} into {@link Protocol} messages,
+ * remembering what it last sent so that only changes are sent.
+ * <p>
+ * Messages are written into a buffer that is reused for every message.
+ *
+ * @author Mike Lowe
+ */
+public final class DeltaEncoder {
+
+  private final byte[] buffer = new byte[Protocol.MAXIMUM_MESSAGE_LENGTH + 1];
+  private long ticks;
+  private int length;
+  private int foodCell;
+  private boolean isBonusFoodShowing;
+  private int bonusFoodCell;
+  private int bonusFoodTicksRemaining;
+  private int score;
+  private boolean isSnakeDead;
+  private boolean isBoardComplete;
+
+  /**
+   * @return the buffer holding the last message written, including its length byte
+   */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Writes a {@link Protocol#START} message with the full state of a new game.
+   *
+   * @param simulation the {@link Simulation}, which must have just been reset
+   * @return the number of bytes in the buffer to send
+   */
+  public int encodeStart(Simulation simulation) {
+    int position = 1;
+    buffer[position++] = Protocol.START;
+    position = Protocol.writeVarint(buffer, position, simulation.getColumns());
+    position = Protocol.writeVarint(buffer, position, simulation.getRows());
+    position = Protocol.writeVarint(buffer, position, simulation.getHeadCell());
+    buffer[position++] = (byte) simulation.getLastDirection().ordinal();
+    position = Protocol.writeVarint(buffer, position, simulation.getFoodCell() + 1);
+    position = Protocol.writeLong(buffer, position, simulation.getSeed());
+    remember(simulation);
+    return finish(position);
+  }
+
+  /**
+   * Writes a {@link Protocol#TICK} message with what has changed since the last message.
+   *
+   * @param simulation the {@link Simulation}
+   * @return the number of bytes in the buffer to send, or {@code 0} if nothing has changed
+   */
+  public int encodeTick(Simulation simulation) {
+    int flags = 0;
+    if (simulation.getTicks() != ticks) {
+      flags |= Protocol.MOVED;
+      if (simulation.getLength() == length) {
+        flags |= Protocol.TAIL_ADVANCED;
+      }
+    }
+    if (simulation.getFoodCell() != foodCell) {
+      flags |= Protocol.FOOD_MOVED;
+    }
+    if (simulation.isBonusFoodShowing() && (!isBonusFoodShowing ||
+        simulation.getBonusFoodCell() != bonusFoodCell ||
+        simulation.getBonusFoodTicksRemaining() != bonusFoodTicksRemaining)) {
+      flags |= Protocol.BONUS_FOOD_CHANGED;
+    } else if (!simulation.isBonusFoodShowing() && isBonusFoodShowing) {
+      flags |= Protocol.BONUS_FOOD_REMOVED;
+    }
+    if (simulation.getScore() != score) {
+      flags |= Protocol.SCORE_CHANGED;
+    }
+    if (simulation.isSnakeDead() && !isSnakeDead) {
+      flags |= Protocol.SNAKE_DIED;
+    }
+    if (simulation.isBoardComplete() && !isBoardComplete) {
+      flags |= Protocol.BOARD_COMPLETE;
+    }
+    if (flags == 0) {
+      return 0;
+    }
+
+    int position = 1;
+    buffer[position++] = Protocol.TICK;
+    buffer[position++] = (byte) flags;
+    if ((flags & Protocol.MOVED) != 0) {
+      position = Protocol.writeVarint(buffer, position, simulation.getHeadCell());
+    }
+    if ((flags & Protocol.FOOD_MOVED) != 0) {
+      position = Protocol.writeVarint(buffer, position, simulation.getFoodCell() + 1);
+    }
+    if ((flags & Protocol.BONUS_FOOD_CHANGED) != 0) {
+      position = Protocol.writeVarint(buffer, position, simulation.getBonusFoodCell());
+      position = Protocol.writeVarint(buffer, position, simulation.getBonusFoodTicksRemaining());
+    }
+    if ((flags & Protocol.SCORE_CHANGED) != 0) {
+      position = Protocol.writeVarint(buffer, position, simulation.getScore());
+    }
+    remember(simulation);
+    return finish(position);
+  }
+
+  private void remember(Simulation simulation) {
+    ticks = simulation.getTicks();
+    length = simulation.getLength();
+    foodCell = simulation.getFoodCell();
+    isBonusFoodShowing = simulation.isBonusFoodShowing();
+    bonusFoodCell = simulation.getBonusFoodCell();
+    bonusFoodTicksRemaining = simulation.getBonusFoodTicksRemaining();
+    score = simulation.getScore();
+    isSnakeDead = simulation.isSnakeDead();
+    isBoardComplete = simulation.isBoardComplete();
+  }
+
+  private int finish(int position) {
+    buffer[0] = (byte) (position - 1);
+    return position;
+  }
+}
@@ -0,0 +1,245 @@
+package lowe.mike.snake.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import lowe.mike.snake.simulation.Direction;
+
+/**
+ * {@code GameClient} connects to a game server, sending the player's input and receiving the
+ * changes to the game each tick.
+ * <p>
+ * Connecting and reading are done by a background thread, and writing by another, so the thread
+ * that draws the game never waits on the network. Input waits in a small queue for the writer, and
+ * is dropped if the queue fills up because the server has stopped reading. Received bytes are only
+ * applied to a {@link RemoteGameState} when {@link #poll(RemoteGameState)} is called, so the state
+ * is only ever touched by the thread that draws it.
+ *
+ * @author Mike Lowe
+ */
+public final class GameClient {
+
+  private static final int CONNECT_TIMEOUT = 5000;
+  private static final int BUFFER_SIZE = 4096;
+  private static final int MAXIMUM_QUEUED_INPUTS = 64;
+
+  private final Socket socket;
+  private volatile OutputStream output;
+  private final Object outputLock = new Object();
+  // input waiting for the writer thread, one byte each
+  private final byte[] queuedInputs = new byte[MAXIMUM_QUEUED_INPUTS];
+  private int queuedInputCount;
+  private final Object lock = new Object();
+  // bytes read by the background thread that haven't been polled yet
+  private byte[] pending = new byte[BUFFER_SIZE];
+  private int pendingLength;
+  // bytes being applied, which may end with part of a message
+  private byte[] received = new byte[BUFFER_SIZE];
+  private int receivedLength;
+  private volatile boolean isClosed;
+  private volatile IOException connectError;
+
+  /**
+   * Creates a new {@code GameClient} instance, which starts connecting to the given address in the
+   * background.
+   *
+   * @param address the server's host name, optionally followed by a colon and port number
+   * @throws IllegalArgumentException if the port number isn't valid
+   */
+  public GameClient(String address) {
+    int separator = address.lastIndexOf(':');
+    final String host = separator < 0 ? address : address.substring(0, separator);
+    final int port = separator < 0 ? Protocol.DEFAULT_PORT
+        : Integer.parseInt(address.substring(separator + 1));
+    this.socket = new Socket();
+    startThread(new Runnable() {
+
+      @Override
+      public void run() {
+        connectAndRead(host, port);
+      }
+
+    }, "game-client");
+  }
+
+  private static void startThread(Runnable runnable, String name) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void connectAndRead(String host, int port) {
+    InputStream input;
+    final OutputStream output;
+    try {
+      socket.setTcpNoDelay(true);
+      socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+      input = socket.getInputStream();
+      output = socket.getOutputStream();
+    } catch (IOException e) {
+      if (!isClosed) {
+        connectError = e;
+      }
+      close();
+      return;
+    }
+    startThread(new Runnable() {
+
+      @Override
+      public void run() {
+        write(output);
+      }
+
+    }, "game-client-writer");
+    this.output = output;
+    read(input);
+  }
+
+  private void write(OutputStream output) {
+    byte[] writing = new byte[MAXIMUM_QUEUED_INPUTS];
+    try {
+      while (true) {
+        int length;
+        synchronized (outputLock) {
+          while (queuedInputCount == 0 && !isClosed) {
+            outputLock.wait();
+          }
+          if (isClosed) {
+            return;
+          }
+          length = queuedInputCount;
+          System.arraycopy(queuedInputs, 0, writing, 0, length);
+          queuedInputCount = 0;
+        }
+        output.write(writing, 0, length);
+        output.flush();
+      }
+    } catch (IOException e) {
+      // treated the same as the server closing the connection
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      close();
+    }
+  }
+
+  private void read(InputStream input) {
+    byte[] chunk = new byte[BUFFER_SIZE];
+    try {
+      int count;
+      while ((count = input.read(chunk)) != -1) {
+        synchronized (lock) {
+          pending = ensureCapacity(pending, pendingLength + count);
+          System.arraycopy(chunk, 0, pending, pendingLength, count);
+          pendingLength += count;
+        }
+      }
+    } catch (IOException e) {
+      // treated the same as the server closing the connection
+    } finally {
+      close();
+    }
+  }
+
+  private static byte[] ensureCapacity(byte[] buffer, int capacity) {
+    if (capacity <= buffer.length) {
+      return buffer;
+    }
+    byte[] newBuffer = new byte[Math.max(capacity, buffer.length * 2)];
+    System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
+    return newBuffer;
+  }
+
+  /**
+   * Applies everything received since the last poll.
+   *
+   * @param state the {@link RemoteGameState} to apply it to
+   * @return if anything was applied
+   */
+  public boolean poll(RemoteGameState state) {
+    synchronized (lock) {
+      if (pendingLength == 0) {
+        return false;
+      }
+      received = ensureCapacity(received, receivedLength + pendingLength);
+      System.arraycopy(pending, 0, received, receivedLength, pendingLength);
+      receivedLength += pendingLength;
+      pendingLength = 0;
+    }
+    int used = state.apply(received, 0, receivedLength);
+    // keep any partial message for the next poll
+    System.arraycopy(received, used, received, 0, receivedLength - used);
+    receivedLength -= used;
+    return used > 0;
+  }
+
+  /**
+   * Asks the server to turn the snake.
+   *
+   * @param direction the {@link Direction} to turn to
+   */
+  public void sendDirection(Direction direction) {
+    send(direction.ordinal());
+  }
+
+  /**
+   * Asks the server to start a new game.
+   */
+  public void sendRestart() {
+    send(Protocol.RESTART);
+  }
+
+  private void send(int input) {
+    if (isClosed || output == null) {
+      // not connected yet, and the server ignores input until the game starts anyway
+      return;
+    }
+    synchronized (outputLock) {
+      // if the server has stopped reading, the input is dropped rather than waiting on it
+      if (queuedInputCount < queuedInputs.length) {
+        queuedInputs[queuedInputCount++] = (byte) input;
+        outputLock.notify();
+      }
+    }
+  }
+
+  /**
+   * @return if the connection has been made, even if it has since been closed
+   */
+  public boolean isConnected() {
+    return output != null;
+  }
+
+  /**
+   * @return why the connection couldn't be made, or {@code null} if it was made or is still being
+   * made
+   */
+  public IOException getConnectError() {
+    return connectError;
+  }
+
+  /**
+   * @return if the connection has been closed
+   */
+  public boolean isClosed() {
+    return isClosed;
+  }
+
+  /**
+   * Closes the connection.
+   */
+  public void close() {
+    isClosed = true;
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // nothing more to do
+    }
+    // wake the writer so it can finish
+    synchronized (outputLock) {
+      outputLock.notify();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package lowe.mike.snake.net;
+
+/**
+ * {@code Protocol} describes the messages sent between a game server and its clients.
+ * <p>
+ * Clients send single bytes: the ordinal of a {@link lowe.mike.snake.simulation.Direction} to turn
+ * to, or {@link #RESTART} to start a new game. The server sends framed messages, each a length
+ * byte followed by the message, which starts with its type. A {@link #START} message carries the
+ * full initial state of a game and the seed it was started from, and after that each tick only
+ * sends what changed as a {@link #TICK} message: flags for what happened, the new head cell, and
+ * any food, bonus food and score changes. The body is never sent, as the client can follow it from
+ * the heads, so messages stay the same size however long the snake gets. Numbers are written as
+ * variable length integers.
+ * <p>
+ * Instances of {@code Protocol} cannot be created.
+ *
+ * @author Mike Lowe
+ */
+public final class Protocol {
+
+  // don't want instances
+  private Protocol() {
+  }
+
+  public static final int DEFAULT_PORT = 7777;
+  public static final int RESTART = 4;
+
+  // all messages are shorter than this, so their length always fits in a single byte
+  static final int MAXIMUM_MESSAGE_LENGTH = 127;
+
+  static final int START = 0;
+  static final int TICK = 1;
+
+  static final int MOVED = 1;
+  static final int TAIL_ADVANCED = 1 << 1;
+  static final int FOOD_MOVED = 1 << 2;
+  static final int BONUS_FOOD_CHANGED = 1 << 3;
+  static final int BONUS_FOOD_REMOVED = 1 << 4;
+  static final int SCORE_CHANGED = 1 << 5;
+  static final int SNAKE_DIED = 1 << 6;
+  static final int BOARD_COMPLETE = 1 << 7;
+
+  /**
+   * Writes a non-negative number seven bits at a time, lowest bits first.
+   *
+   * @param buffer the buffer to write to
+   * @param position the index to write at
+   * @param value the number
+   * @return the index after the number
+   */
+  static int writeVarint(byte[] buffer, int position, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+    return position;
+  }
+
+  /**
+   * Writes a number as eight bytes, highest bits first.
+   *
+   * @param buffer the buffer to write to
+   * @param position the index to write at
+   * @param value the number
+   * @return the index after the number
+   */
+  static int writeLong(byte[] buffer, int position, long value) {
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buffer[position++] = (byte) (value >>> shift);
+    }
+    return position;
+  }
+
+  /**
+   * Reads a number written by {@link #writeLong(byte[], int, long)}.
+   *
+   * @param buffer the buffer to read from
+   * @param position the index to read from, which is moved past the number
+   * @return the number
+   */
+  static long readLong(byte[] buffer, int[] position) {
+    long value = 0L;
+    for (int i = 0; i < 8; i++) {
+      value = (value << 8) | (buffer[position[0]++] & 0xFF);
+    }
+    return value;
+  }
+
+  /**
+   * Reads a number written by {@link #writeVarint(byte[], int, int)}.
+   *
+   * @param buffer the buffer to read from
+   * @param position the index to read from, which is moved past the number
+   * @return the number
+   */
+  static int readVarint(byte[] buffer, int[] position) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = buffer[position[0]++];
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+  }
+}
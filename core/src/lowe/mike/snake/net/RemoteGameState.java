@@ -0,0 +1,259 @@
+package lowe.mike.snake.net;
+
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.GameState;
+import lowe.mike.snake.simulation.Simulation;
+
+/**
+ * {@code RemoteGameState} is a {@link GameState} that mirrors a game being simulated by a server,
+ * rebuilt from the {@link Protocol} messages it sends.
+ * <p>
+ * The body is followed from the head cell sent each tick and whether the tail advanced, so it is
+ * kept in a circular buffer of cells in the same way as {@link Simulation}.
+ *
+ * @author Mike Lowe
+ */
+public final class RemoteGameState implements GameState {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final int INITIAL_BODY_CAPACITY = 64;
+
+  private final int[] position = new int[1];
+  private boolean isStarted;
+  private long seed;
+  private int columns;
+  private int rows;
+  private int[] body = new int[INITIAL_BODY_CAPACITY];
+  private int headIndex;
+  private int length;
+  private Direction lastDirection = Direction.RIGHT;
+  private boolean isSnakeDead;
+  private boolean isBoardComplete;
+  private int foodCell = Simulation.NO_CELL;
+  private boolean isBonusFoodShowing;
+  private int bonusFoodCell = Simulation.NO_CELL;
+  private int bonusFoodTicksRemaining;
+  private int score;
+  private long ticks;
+
+  /**
+   * @return if a game has been started by the server since this {@code RemoteGameState} was
+   * created or last restarted
+   */
+  public boolean isStarted() {
+    return isStarted;
+  }
+
+  /**
+   * @return the seed the server started the current game from, which with the same inputs
+   * reproduces the game in a {@link Simulation}
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Marks this {@code RemoteGameState} as waiting for the server to start a new game.
+   */
+  public void restart() {
+    isStarted = false;
+  }
+
+  /**
+   * Applies every complete message in the given bytes.
+   *
+   * @param data the bytes received from the server
+   * @param offset the index of the first byte
+   * @param end the index after the last byte
+   * @return the number of bytes used, which may leave part of a message behind
+   */
+  int apply(byte[] data, int offset, int end) {
+    int start = offset;
+    while (start < end && start + 1 + data[start] <= end) {
+      position[0] = start + 1;
+      int type = data[position[0]++];
+      if (type == Protocol.START) {
+        applyStart(data);
+      } else if (type == Protocol.TICK) {
+        applyTick(data);
+      }
+      start += 1 + data[start];
+    }
+    return start - offset;
+  }
+
+  private void applyStart(byte[] data) {
+    columns = Protocol.readVarint(data, position);
+    rows = Protocol.readVarint(data, position);
+    headIndex = 0;
+    body[0] = Protocol.readVarint(data, position);
+    length = 1;
+    lastDirection = DIRECTIONS[data[position[0]++]];
+    foodCell = Protocol.readVarint(data, position) - 1;
+    seed = Protocol.readLong(data, position);
+    isSnakeDead = false;
+    isBoardComplete = false;
+    isBonusFoodShowing = false;
+    bonusFoodCell = Simulation.NO_CELL;
+    bonusFoodTicksRemaining = 0;
+    score = 0;
+    ticks = 0;
+    isStarted = true;
+  }
+
+  private void applyTick(byte[] data) {
+    int flags = data[position[0]++] & 0xFF;
+    if ((flags & Protocol.MOVED) != 0) {
+      moveSnake(Protocol.readVarint(data, position), (flags & Protocol.TAIL_ADVANCED) != 0);
+    }
+    if ((flags & Protocol.FOOD_MOVED) != 0) {
+      foodCell = Protocol.readVarint(data, position) - 1;
+    }
+    if ((flags & Protocol.BONUS_FOOD_CHANGED) != 0) {
+      isBonusFoodShowing = true;
+      bonusFoodCell = Protocol.readVarint(data, position);
+      bonusFoodTicksRemaining = Protocol.readVarint(data, position);
+    } else if ((flags & Protocol.BONUS_FOOD_REMOVED) != 0) {
+      isBonusFoodShowing = false;
+      bonusFoodCell = Simulation.NO_CELL;
+      bonusFoodTicksRemaining = 0;
+    }
+    if ((flags & Protocol.SCORE_CHANGED) != 0) {
+      score = Protocol.readVarint(data, position);
+    }
+    if ((flags & Protocol.SNAKE_DIED) != 0) {
+      isSnakeDead = true;
+    }
+    if ((flags & Protocol.BOARD_COMPLETE) != 0) {
+      isBoardComplete = true;
+    }
+  }
+
+  private void moveSnake(int headCell, boolean hasTailAdvanced) {
+    lastDirection = getDirection(getHeadCell(), headCell);
+    if (!hasTailAdvanced) {
+      ensureBodyCapacity();
+      length++;
+    }
+    headIndex = (headIndex + 1) & (body.length - 1);
+    body[headIndex] = headCell;
+    ticks++;
+  }
+
+  private void ensureBodyCapacity() {
+    if (length < body.length) {
+      return;
+    }
+    // unwrap the buffer so the tail is at index 0 and the head at index length - 1
+    int[] newBody = new int[body.length * 2];
+    int tailIndex = (headIndex - length + 1) & (body.length - 1);
+    int tailToEnd = Math.min(length, body.length - tailIndex);
+    System.arraycopy(body, tailIndex, newBody, 0, tailToEnd);
+    System.arraycopy(body, 0, newBody, tailToEnd, length - tailToEnd);
+    body = newBody;
+    headIndex = length - 1;
+  }
+
+  private Direction getDirection(int fromCell, int toCell) {
+    int columnOffset = getColumn(toCell) - getColumn(fromCell);
+    int rowOffset = getRow(toCell) - getRow(fromCell);
+    // moves wrapping around an edge look like a jump to the opposite side
+    if (Math.abs(columnOffset) > 1) {
+      columnOffset = -Integer.signum(columnOffset);
+    }
+    if (Math.abs(rowOffset) > 1) {
+      rowOffset = -Integer.signum(rowOffset);
+    }
+    for (Direction direction : DIRECTIONS) {
+      if (direction.getColumnOffset() == columnOffset && direction.getRowOffset() == rowOffset) {
+        return direction;
+      }
+    }
+    return lastDirection;
+  }
+
+  @Override
+  public int getColumns() {
+    return columns;
+  }
+
+  @Override
+  public int getRows() {
+    return rows;
+  }
+
+  @Override
+  public int getColumn(int cell) {
+    return cell % columns;
+  }
+
+  @Override
+  public int getRow(int cell) {
+    return cell / columns;
+  }
+
+  @Override
+  public int getLength() {
+    return length;
+  }
+
+  @Override
+  public int getBodyPartCell(int index) {
+    return body[(headIndex - index) & (body.length - 1)];
+  }
+
+  @Override
+  public int getHeadCell() {
+    return body[headIndex];
+  }
+
+  @Override
+  public Direction getLastDirection() {
+    return lastDirection;
+  }
+
+  @Override
+  public boolean canTurn(Direction direction) {
+    return direction != null && !direction.isOpposite(lastDirection);
+  }
+
+  @Override
+  public boolean isSnakeDead() {
+    return isSnakeDead;
+  }
+
+  @Override
+  public boolean isBoardComplete() {
+    return isBoardComplete;
+  }
+
+  @Override
+  public int getFoodCell() {
+    return foodCell;
+  }
+
+  @Override
+  public boolean isBonusFoodShowing() {
+    return isBonusFoodShowing;
+  }
+
+  @Override
+  public int getBonusFoodCell() {
+    return bonusFoodCell;
+  }
+
+  @Override
+  public int getBonusFoodTicksRemaining() {
+    return bonusFoodTicksRemaining;
+  }
+
+  @Override
+  public int getScore() {
+    return score;
+  }
+
+  @Override
+  public long getTicks() {
+    return ticks;
+  }
+}
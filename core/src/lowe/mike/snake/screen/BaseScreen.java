@@ -7,24 +7,38 @@ import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.Timer;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import lowe.mike.snake.SnakeGame;
 
 /**
  * Provides a base class for the {@link Screen}s in the game.
+ * <p>
+ * The game doesn't render continuously. A frame is drawn when there is input, while the {@link
+ * Stage} has actions running, and when the {@link Screen} asks for one with {@link
+ * #getTimeUntilNextFrame()}, so a screen that isn't changing doesn't use any power drawing it.
  *
  * @author Mike Lowe
  */
 class BaseScreen extends ScreenAdapter {
 
   static final float COMPONENT_SPACING = 20f;
+  static final float NO_FRAME_NEEDED = -1f;
 
   final SpriteBatch spriteBatch;
   final Stage stage;
 
   private final OrthographicCamera camera = new OrthographicCamera();
   private final Viewport viewport;
+  private final Timer.Task renderTask = new Timer.Task() {
+
+    @Override
+    public void run() {
+      Gdx.graphics.requestRendering();
+    }
+  };
+  private boolean isJustShown;
 
   /**
    * Creates a new {@code BaseScreen} given a {@link SpriteBatch}.
@@ -41,20 +55,58 @@ class BaseScreen extends ScreenAdapter {
   @Override
   public final void show() {
     Gdx.input.setInputProcessor(stage);
+    isJustShown = true;
+    Gdx.graphics.requestRendering();
   }
 
   @Override
   public final void resize(int width, int height) {
     viewport.update(width, height);
+    onResize();
+    Gdx.graphics.requestRendering();
+  }
+
+  @Override
+  public final void resume() {
+    onResume();
+    Gdx.graphics.requestRendering();
   }
 
   @Override
   public final void render(float delta) {
+    if (isJustShown) {
+      // time spent on other screens, or waiting for input, shouldn't count
+      isJustShown = false;
+      delta = 0f;
+    }
     Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
     update(delta);
     spriteBatch.setProjectionMatrix(camera.combined);
     stage.act(delta);
     stage.draw();
+    onDrawn();
+    scheduleNextFrame();
+  }
+
+  private void scheduleNextFrame() {
+    float time = getTimeUntilNextFrame();
+    if (time == 0f) {
+      Gdx.graphics.requestRendering();
+    } else if (time > 0f) {
+      renderTask.cancel();
+      Timer.schedule(renderTask, time);
+    }
+  }
+
+  /**
+   * Method that subclasses can override to have a frame drawn without waiting for input, such as
+   * when something is moving on the {@link Screen}.
+   *
+   * @return time in seconds until the next frame should be drawn, {@code 0} to draw it as soon as
+   * possible or {@link #NO_FRAME_NEEDED} to wait for input
+   */
+  float getTimeUntilNextFrame() {
+    return NO_FRAME_NEEDED;
   }
 
   /**
@@ -66,8 +118,29 @@ class BaseScreen extends ScreenAdapter {
   void update(float delta) {
   }
 
+  /**
+   * Method that subclasses can override to find out when each frame has been drawn.
+   */
+  void onDrawn() {
+  }
+
+  /**
+   * Method that subclasses can override to find out when the size of the screen has changed,
+   * which also happens each time this {@link Screen} is shown.
+   */
+  void onResize() {
+  }
+
+  /**
+   * Method that subclasses can override to find out when the game has resumed after being paused,
+   * during which the GL context may have been lost.
+   */
+  void onResume() {
+  }
+
   @Override
   public final void dispose() {
+    renderTask.cancel();
     stage.dispose();
     onDispose();
   }
@@ -46,13 +46,17 @@ final class GameOverScreen extends BaseScreen {
     addYourScoreLabels(menu);
     addHighScoreLabels(menu);
     addNewGameButton(menu);
+    if (gameScreen.canWatchReplay()) {
+      addWatchReplayButton(menu);
+    }
     addExitButton(menu);
     stage.addActor(menu);
   }
 
   private void addGameOverLabel(Table menu) {
     menu.row().padBottom(COMPONENT_SPACING);
-    Label gameOverLabel = Utils.createTextLabel(Assets.getSmallFont(), "Game Over");
+    String text = State.isBoardComplete() ? "Board Complete" : "Game Over";
+    Label gameOverLabel = Utils.createTextLabel(Assets.getSmallFont(), text);
     menu.add(gameOverLabel);
   }
 
@@ -99,6 +103,25 @@ final class GameOverScreen extends BaseScreen {
     });
   }
 
+  private void addWatchReplayButton(Table menu) {
+    menu.row().padTop(COMPONENT_SPACING);
+    TextButton watchReplayButton = Utils.createTextButton(Assets.getSmallFont(), "Watch Replay");
+    addWatchReplayButtonListener(watchReplayButton);
+    menu.add(watchReplayButton);
+  }
+
+  private void addWatchReplayButtonListener(TextButton watchReplayButton) {
+    watchReplayButton.addListener(new ChangeListener() {
+
+      @Override
+      public void changed(ChangeEvent event, Actor actor) {
+        ScreenManager.switchToPreviousScreen();
+        gameScreen.watchReplay();
+      }
+
+    });
+  }
+
   private void addExitButton(Table menu) {
     menu.row().padTop(COMPONENT_SPACING);
     TextButton exitButton = Utils.createTextButton(Assets.getSmallFont(), "Exit");
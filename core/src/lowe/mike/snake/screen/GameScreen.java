@@ -9,10 +9,15 @@ import com.badlogic.gdx.scenes.scene2d.InputListener;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
 import com.badlogic.gdx.scenes.scene2d.ui.ImageButton;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
-import java.util.Locale;
+import com.badlogic.gdx.utils.StringBuilder;
 import lowe.mike.snake.SnakeGame;
+import lowe.mike.snake.ai.AutopilotController;
+import lowe.mike.snake.ai.HamiltonianController;
+import lowe.mike.snake.net.GameClient;
 import lowe.mike.snake.util.Assets;
+import lowe.mike.snake.util.LatencyHistogram;
 import lowe.mike.snake.util.ScreenManager;
 import lowe.mike.snake.util.State;
 import lowe.mike.snake.util.Utils;
@@ -38,10 +43,20 @@ final class GameScreen extends BaseScreen {
   private static final float PAUSE_BUTTON_X = 308f;
   private static final float PAUSE_BUTTON_Y = 198f;
   private static final float BONUS_LABEL_Y = 565.5f;
+  private static final int SCORE_DIGITS = 4;
+  private static final String LAST_REPLAY_FILE_NAME = "last-game.replay";
+  private static final String LATENCY_FILE_NAME = "latency.txt";
+  private static final float LATENCY_LABEL_SCALE = .5f;
+  private static final float LATENCY_UPDATE_INTERVAL = .5f;
 
   private final World world;
   private final Label scoreLabel;
   private final Label bonusLabel;
+  private int displayedScore;
+  private int displayedBonusFoodTicks = -1;
+  private final Label latencyLabel;
+  private final StringBuilder latencyText = new StringBuilder();
+  private float timeSinceLatencyUpdate;
 
   /**
    * Creates a new {@code GameScreen} given a {@link SpriteBatch}.
@@ -52,6 +67,7 @@ final class GameScreen extends BaseScreen {
     super(spriteBatch);
     setBackground();
     this.world = new World(this.stage);
+    connect();
     addGameFrame();
     this.scoreLabel = createScoreLabel();
     this.stage.addActor(this.scoreLabel);
@@ -60,10 +76,21 @@ final class GameScreen extends BaseScreen {
     addDownButton();
     addLeftButton();
     addPauseButton();
+    addKeyListener();
     this.bonusLabel = Utils.createTextLabel(Assets.getSmallFont(), "");
+    this.latencyLabel = createLatencyLabel();
+    addLatencyToggle();
     initialise();
   }
 
+  private void connect() {
+    if (State.getServerAddress() == null) {
+      return;
+    }
+    // connects in the background, and the game is played locally if it can't
+    world.connect(new GameClient(State.getServerAddress()));
+  }
+
   private void setBackground() {
     stage.addActor(new Image(Assets.getBackground()));
   }
@@ -78,6 +105,32 @@ final class GameScreen extends BaseScreen {
     return scoreLabel;
   }
 
+  private Label createLatencyLabel() {
+    Label latencyLabel = Utils.createTextLabel(Assets.getSmallFont(), "");
+    latencyLabel.setFontScale(LATENCY_LABEL_SCALE);
+    return latencyLabel;
+  }
+
+  private void addLatencyToggle() {
+    // tapping the score shows or hides the latencies, as there may not be a keyboard
+    scoreLabel.addListener(new ClickListener() {
+
+      @Override
+      public void clicked(InputEvent event, float x, float y) {
+        toggleLatencyLabel();
+      }
+    });
+  }
+
+  private void toggleLatencyLabel() {
+    if (latencyLabel.getStage() == null) {
+      timeSinceLatencyUpdate = LATENCY_UPDATE_INTERVAL;
+      stage.addActor(latencyLabel);
+    } else {
+      latencyLabel.remove();
+    }
+  }
+
   private void addUpButton() {
     ImageButton upButton =
         Utils.createImageButton(Assets.getLargeUpArrow(), Assets.getLargeUpArrowPressed());
@@ -173,12 +226,58 @@ final class GameScreen extends BaseScreen {
     });
   }
 
+  private void addKeyListener() {
+    // key presses are handled as they arrive, so none are missed between frames
+    stage.addListener(new InputListener() {
+
+      @Override
+      public boolean keyDown(InputEvent event, int keycode) {
+        return handleKey(keycode);
+      }
+    });
+  }
+
+  private boolean handleKey(int keycode) {
+    switch (keycode) {
+      case Input.Keys.UP:
+        world.setSnakeDirectionUp();
+        return true;
+      case Input.Keys.RIGHT:
+        world.setSnakeDirectionRight();
+        return true;
+      case Input.Keys.DOWN:
+        world.setSnakeDirectionDown();
+        return true;
+      case Input.Keys.LEFT:
+        world.setSnakeDirectionLeft();
+        return true;
+      case Input.Keys.A:
+        world.setAutopilot(world.isAutopilotOn() ? null : new AutopilotController());
+        return true;
+      case Input.Keys.H:
+        world.setAutopilot(world.isAutopilotOn() ? null : new HamiltonianController());
+        return true;
+      case Input.Keys.L:
+        toggleLatencyLabel();
+        return true;
+      case Input.Keys.M:
+        world.setMeshRendering(!world.isMeshRendering());
+        return true;
+      case Input.Keys.I:
+        world.setInterpolating(!world.isInterpolating());
+        return true;
+      default:
+        return false;
+    }
+  }
+
   private void switchToPauseScreen() {
     ScreenManager.setScreen(new PauseScreen(spriteBatch, this));
   }
 
   private void initialise() {
     State.setGameOver(false);
+    State.setBoardComplete(false);
     State.setCurrentScore(0);
   }
 
@@ -187,18 +286,83 @@ final class GameScreen extends BaseScreen {
     initialise();
   }
 
+  /**
+   * @return if the last game can be watched again, which isn't possible when playing on a server
+   */
+  boolean canWatchReplay() {
+    return !world.isOnline();
+  }
+
+  /**
+   * @return if the current game can be rewound any further
+   */
+  boolean canRewind() {
+    return world.canRewind();
+  }
+
+  /**
+   * Rewinds the current game.
+   *
+   * @param seconds the number of seconds to rewind by
+   * @return the number of seconds actually rewound, which is less if the game can't be rewound
+   * that far
+   */
+  float rewind(float seconds) {
+    return world.rewind(seconds);
+  }
+
+  void watchReplay() {
+    world.playReplay(world.getReplay());
+    initialise();
+  }
+
   @Override
   void update(float delta) {
     // switch screens if game is over
     if (State.isGameOver()) {
       updateHighScore();
+      saveReplay();
+      saveLatencies();
       ScreenManager.setScreen(new GameOverScreen(spriteBatch, this));
       return;
     }
     world.update(delta);
-    handleUserInput();
     updateScoreLabel();
     updateBonusLabel();
+    updateLatencyLabel(delta);
+  }
+
+  @Override
+  float getTimeUntilNextFrame() {
+    if (State.isGameOver()) {
+      // switch screens on the next frame
+      return 0f;
+    }
+    float time = world.getTimeUntilNextChange();
+    if (latencyLabel.getStage() != null) {
+      time = Math.min(time, Math.max(LATENCY_UPDATE_INTERVAL - timeSinceLatencyUpdate, 0f));
+    }
+    return time;
+  }
+
+  @Override
+  void onDrawn() {
+    world.frameDrawn();
+  }
+
+  @Override
+  void onResize() {
+    world.resize();
+  }
+
+  @Override
+  void onResume() {
+    world.resume();
+  }
+
+  @Override
+  void onDispose() {
+    world.dispose();
   }
 
   private void updateHighScore() {
@@ -207,32 +371,74 @@ final class GameScreen extends BaseScreen {
     }
   }
 
-  private void handleUserInput() {
-    if (Gdx.input.isKeyJustPressed(Input.Keys.UP)) {
-      world.setSnakeDirectionUp();
-    } else if (Gdx.input.isKeyJustPressed(Input.Keys.RIGHT)) {
-      world.setSnakeDirectionRight();
-    } else if (Gdx.input.isKeyJustPressed(Input.Keys.DOWN)) {
-      world.setSnakeDirectionDown();
-    } else if (Gdx.input.isKeyJustPressed(Input.Keys.LEFT)) {
-      world.setSnakeDirectionLeft();
+  private void saveReplay() {
+    // keep the last game played so it can be re-simulated later
+    if (!world.isPlayingReplay() && !world.isOnline() && Gdx.files.isLocalStorageAvailable()) {
+      Gdx.files.local(LAST_REPLAY_FILE_NAME).writeBytes(world.getReplay().toBytes(), false);
+    }
+  }
+
+  private void saveLatencies() {
+    // keep every latency measured since the game screen was opened, for comparing devices
+    LatencyHistogram tickLatencies = world.getTickLatencies();
+    if (tickLatencies.getCount() > 0L && Gdx.files.isLocalStorageAvailable()) {
+      StringBuilder text = new StringBuilder();
+      tickLatencies.appendBuckets(text);
+      text.append('\n');
+      world.getFrameLatencies().appendBuckets(text);
+      Gdx.files.local(LATENCY_FILE_NAME).writeString(text.toString(), false);
     }
   }
 
   private void updateScoreLabel() {
-    scoreLabel.setText(String.format(Locale.ENGLISH, "%04d", State.getCurrentScore()));
-    scoreLabel.pack();
+    // only lay out the label again when the score changes
+    if (State.getCurrentScore() != displayedScore) {
+      displayedScore = State.getCurrentScore();
+      Utils.updateNumberLabel(scoreLabel, displayedScore, SCORE_DIGITS);
+      scoreLabel.pack();
+    }
   }
 
   private void updateBonusLabel() {
     if (world.isBonusFoodShowing()) {
-      Utils.updateNumberLabel(bonusLabel, world.getBonusFoodTicksRemaining());
-      bonusLabel.pack();
-      bonusLabel
-          .setPosition(SnakeGame.WIDTH - COMPONENT_SPACING - bonusLabel.getWidth(), BONUS_LABEL_Y);
-      stage.addActor(bonusLabel);
+      if (world.getBonusFoodTicksRemaining() != displayedBonusFoodTicks) {
+        displayedBonusFoodTicks = world.getBonusFoodTicksRemaining();
+        Utils.updateNumberLabel(bonusLabel, displayedBonusFoodTicks);
+        bonusLabel.pack();
+        bonusLabel.setPosition(SnakeGame.WIDTH - COMPONENT_SPACING - bonusLabel.getWidth(),
+            BONUS_LABEL_Y);
+      }
+      if (bonusLabel.getStage() == null) {
+        stage.addActor(bonusLabel);
+      }
     } else {
+      displayedBonusFoodTicks = -1;
       bonusLabel.remove();
     }
   }
+
+  private void updateLatencyLabel(float delta) {
+    // the text is only laid out again now and then, so it can be read and is cheap to keep up
+    if (latencyLabel.getStage() == null) {
+      return;
+    }
+    timeSinceLatencyUpdate += delta;
+    if (timeSinceLatencyUpdate < LATENCY_UPDATE_INTERVAL) {
+      return;
+    }
+    timeSinceLatencyUpdate = 0f;
+    latencyText.setLength(0);
+    world.getTickLatencies().appendSummary(latencyText);
+    latencyText.append('\n');
+    world.getFrameLatencies().appendSummary(latencyText);
+    if (world.isMeshRendering()) {
+      latencyText.append("\nMESH DRAWS ").append(world.getMeshDrawCalls())
+          .append(" UPLOADS ").append(world.getMeshUploads())
+          .append(" BYTES ").append(world.getMeshUploadedBytes());
+    }
+    latencyLabel.setText(latencyText);
+    latencyLabel.pack();
+    latencyLabel.setPosition((SnakeGame.WIDTH - latencyLabel.getWidth()) / 2f,
+        SnakeGame.HEIGHT - COMPONENT_SPACING / 2f - latencyLabel.getHeight());
+  }
 }
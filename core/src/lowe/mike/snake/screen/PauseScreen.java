@@ -3,9 +3,11 @@ package lowe.mike.snake.screen;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
+import java.util.Locale;
 import lowe.mike.snake.util.Assets;
 import lowe.mike.snake.util.ScreenManager;
 import lowe.mike.snake.util.Utils;
@@ -17,7 +19,10 @@ import lowe.mike.snake.util.Utils;
  */
 final class PauseScreen extends BaseScreen {
 
+  private static final float REWIND_SECONDS = 1f;
+
   private final GameScreen gameScreen;
+  private float rewoundSeconds;
 
   /**
    * Creates a new {@code PauseScreen} given a {@link SpriteBatch} and a reference to the {@link
@@ -40,6 +45,9 @@ final class PauseScreen extends BaseScreen {
   private void addMenu() {
     Table menu = Utils.createMenu();
     addResumeButton(menu);
+    if (gameScreen.canRewind()) {
+      addRewindButton(menu);
+    }
     addRestartButton(menu);
     addSettingsButton(menu);
     addExitButton(menu);
@@ -64,6 +72,30 @@ final class PauseScreen extends BaseScreen {
     });
   }
 
+  private void addRewindButton(Table menu) {
+    menu.row().padTop(COMPONENT_SPACING);
+    TextButton rewindButton = Utils.createTextButton(Assets.getMediumFont(), "Rewind");
+    menu.add(rewindButton);
+    menu.row();
+    Label rewoundLabel = Utils.createTextLabel(Assets.getSmallFont(), "");
+    menu.add(rewoundLabel);
+    addRewindButtonListener(rewindButton, rewoundLabel);
+  }
+
+  private void addRewindButtonListener(final TextButton rewindButton, final Label rewoundLabel) {
+    rewindButton.addListener(new ChangeListener() {
+
+      @Override
+      public void changed(ChangeEvent event, Actor actor) {
+        // each press goes back a little further, while staying paused
+        rewoundSeconds += gameScreen.rewind(REWIND_SECONDS);
+        rewoundLabel.setText(String.format(Locale.ENGLISH, "-%.1fs", rewoundSeconds));
+        rewindButton.setDisabled(!gameScreen.canRewind());
+      }
+
+    });
+  }
+
   private void addRestartButton(Table menu) {
     menu.row().padTop(COMPONENT_SPACING);
     TextButton restartButton = Utils.createTextButton(Assets.getMediumFont(), "Restart");
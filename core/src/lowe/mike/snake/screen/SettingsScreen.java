@@ -18,6 +18,7 @@ import lowe.mike.snake.util.Assets;
 import lowe.mike.snake.util.ScreenManager;
 import lowe.mike.snake.util.State;
 import lowe.mike.snake.util.Utils;
+import lowe.mike.snake.world.BoardSize;
 import lowe.mike.snake.world.Level;
 
 /**
@@ -50,6 +51,8 @@ final class SettingsScreen extends BaseScreen {
     addMusicButtons(menu);
     addLevelLabel(menu);
     addLevelButtons(menu);
+    addBoardSizeLabel(menu);
+    addBoardSizeButtons(menu);
     addBackButton(menu);
     stage.addActor(menu);
   }
@@ -173,6 +176,54 @@ final class SettingsScreen extends BaseScreen {
     });
   }
 
+  private void addBoardSizeLabel(Table menu) {
+    menu.row().padTop(COMPONENT_SPACING);
+    Label boardSizeLabel = Utils.createTextLabel(Assets.getMediumFont(), "Board Size");
+    menu.add(boardSizeLabel).expandX().colspan(COL_SPAN);
+  }
+
+  private void addBoardSizeButtons(Table menu) {
+    menu.row().padBottom(COMPONENT_SPACING);
+    Label numberLabel = Utils.createNumberLabel(Assets.getMediumFont(), State.getBoardSize());
+
+    float width = SnakeGame.WIDTH / COL_SPAN;
+
+    // create left arrow
+    ImageButton leftArrowButton =
+        Utils.createImageButton(Assets.getSmallLeftArrow(), Assets.getSmallLeftArrowPressed());
+    addBoardSizeArrowButtonListener(leftArrowButton, numberLabel, false);
+    leftArrowButton.align(Align.right);
+    menu.add(leftArrowButton).width(width);
+
+    // add number label in the middle
+    menu.add(numberLabel).width(width);
+
+    // create right arrow
+    ImageButton rightArrowButton =
+        Utils.createImageButton(Assets.getSmallRightArrow(), Assets.getSmallRightArrowPressed());
+    addBoardSizeArrowButtonListener(rightArrowButton, numberLabel, true);
+    rightArrowButton.align(Align.left);
+    menu.add(rightArrowButton).width(width);
+  }
+
+  private void addBoardSizeArrowButtonListener(ImageButton arrowButton,
+      final Label numberLabel,
+      final boolean increase) {
+    arrowButton.addListener(new ChangeListener() {
+
+      @Override
+      public void changed(ChangeEvent event, Actor actor) {
+        // takes effect from the next new game
+        int boardSize = increase ? State.getBoardSize() * 2 : State.getBoardSize() / 2;
+        if (boardSize >= BoardSize.MINIMUM && boardSize <= BoardSize.MAXIMUM) {
+          State.setBoardSize(boardSize);
+          Utils.updateNumberLabel(numberLabel, boardSize);
+        }
+      }
+
+    });
+  }
+
   private void addBackButton(Table menu) {
     menu.row().padTop(COMPONENT_SPACING);
     TextButton backButton = createBackButton();
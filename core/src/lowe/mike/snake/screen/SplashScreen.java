@@ -33,6 +33,12 @@ public final class SplashScreen extends BaseScreen {
     }
   }
 
+  @Override
+  float getTimeUntilNextFrame() {
+    // keep checking until the assets have loaded
+    return 0f;
+  }
+
   private void switchToMainMenuScreen() {
     // dispose this screen and all previous screens because we won't be able to return from the
     // next screen
@@ -0,0 +1,117 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code Board} records what occupies each cell of a {@link Simulation}'s board, so that any cell
+ * can be queried in constant time.
+ * <p>
+ * It is kept up to date by the {@link Simulation} as the snake moves and grows, and as food is
+ * placed and eaten. Small boards are stored densely, whereas large boards are split into chunks
+ * that are only allocated once something occupies them, so memory grows with the number of
+ * occupied cells rather than with the area of the board.
+ *
+ * @author Mike Lowe
+ */
+public abstract class Board {
+
+  public static final byte EMPTY = 0;
+  public static final byte SNAKE = 1;
+  public static final byte FOOD = 2;
+  public static final byte BONUS_FOOD = 3;
+
+  private static final int MAXIMUM_DENSE_CELLS = 1 << 16;
+
+  private final int columns;
+  private final int rows;
+
+  /**
+   * Creates a new empty {@code Board} instance.
+   *
+   * @param columns the number of columns on the board
+   * @param rows the number of rows on the board
+   */
+  Board(int columns, int rows) {
+    this.columns = columns;
+    this.rows = rows;
+  }
+
+  /**
+   * Creates a new empty {@code Board}, choosing the storage to suit its size.
+   *
+   * @param columns the number of columns on the board
+   * @param rows the number of rows on the board
+   * @return the {@code Board}
+   */
+  static Board create(int columns, int rows) {
+    if (columns * rows <= MAXIMUM_DENSE_CELLS) {
+      return new DenseBoard(columns, rows);
+    }
+    return new ChunkedBoard(columns, rows);
+  }
+
+  /**
+   * @return the number of columns on this {@code Board}
+   */
+  public final int getColumns() {
+    return columns;
+  }
+
+  /**
+   * @return the number of rows on this {@code Board}
+   */
+  public final int getRows() {
+    return rows;
+  }
+
+  /**
+   * @return the number of cells on this {@code Board}
+   */
+  public final int getCellCount() {
+    return columns * rows;
+  }
+
+  /**
+   * @return the number of empty cells on this {@code Board}
+   */
+  public abstract int getFreeCellCount();
+
+  /**
+   * @param random the {@link SplitMixRandom} to pick with
+   * @return a random empty cell, or {@link Simulation#NO_CELL} if the board is full
+   */
+  public abstract int getRandomFreeCell(SplitMixRandom random);
+
+  /**
+   * @param cell the cell
+   * @param direction the {@link Direction} to move in
+   * @return the cell next to the given cell in the given {@link Direction}, wrapping around the
+   * edges of the board
+   */
+  public abstract int getNeighbour(int cell, Direction direction);
+
+  /**
+   * @param cell the cell
+   * @return what occupies the given cell, one of {@link #EMPTY}, {@link #SNAKE}, {@link #FOOD} or
+   * {@link #BONUS_FOOD}
+   */
+  public abstract byte get(int cell);
+
+  /**
+   * @param cell the cell
+   * @return if anything occupies the given cell
+   */
+  public final boolean isOccupied(int cell) {
+    return get(cell) != EMPTY;
+  }
+
+  /**
+   * @param cell the cell
+   * @return if the snake occupies the given cell
+   */
+  public final boolean isSnakeOccupying(int cell) {
+    return get(cell) == SNAKE;
+  }
+
+  abstract void set(int cell, byte occupant);
+
+  abstract void clear();
+}
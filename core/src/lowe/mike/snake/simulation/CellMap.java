@@ -0,0 +1,137 @@
+package lowe.mike.snake.simulation;
+
+import java.util.Arrays;
+
+/**
+ * {@code CellMap} maps cells to {@code int} values, using memory in proportion to the number of
+ * entries rather than to the size of the board.
+ * <p>
+ * It uses open addressing with linear probing, and shifts entries back on removal rather than
+ * leaving tombstones, so nothing is allocated unless it has to grow.
+ *
+ * @author Mike Lowe
+ */
+final class CellMap {
+
+  static final int NO_VALUE = -1;
+
+  private static final int MINIMUM_CAPACITY = 8;
+
+  private int[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  /**
+   * Creates a new empty {@code CellMap} instance.
+   *
+   * @param expectedSize the number of entries to make room for
+   */
+  CellMap(int expectedSize) {
+    allocate(Math.max(MINIMUM_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize)) << 2));
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, Simulation.NO_CELL);
+    mask = capacity - 1;
+    size = 0;
+  }
+
+  private int getSlot(int cell) {
+    int hash = cell * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * @return the number of entries
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * @param cell the cell
+   * @return the value for the given cell, or {@link #NO_VALUE} if there isn't one
+   */
+  int get(int cell) {
+    for (int slot = getSlot(cell); keys[slot] != Simulation.NO_CELL; slot = (slot + 1) & mask) {
+      if (keys[slot] == cell) {
+        return values[slot];
+      }
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * @param cell the cell
+   * @param value the value for the cell
+   */
+  void put(int cell, int value) {
+    // keep at most half of the slots full so probes stay short
+    if ((size + 1) * 2 > keys.length) {
+      grow();
+    }
+    int slot = getSlot(cell);
+    while (keys[slot] != Simulation.NO_CELL) {
+      if (keys[slot] == cell) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = cell;
+    values[slot] = value;
+    size++;
+  }
+
+  /**
+   * @param cell the cell
+   * @return the value the given cell had, or {@link #NO_VALUE} if there wasn't one
+   */
+  int remove(int cell) {
+    int slot = getSlot(cell);
+    while (keys[slot] != cell) {
+      if (keys[slot] == Simulation.NO_CELL) {
+        return NO_VALUE;
+      }
+      slot = (slot + 1) & mask;
+    }
+    int value = values[slot];
+    // move later entries in the same run back into the gap so lookups still find them
+    int gap = slot;
+    for (int next = (gap + 1) & mask; keys[next] != Simulation.NO_CELL; next = (next + 1) & mask) {
+      int home = getSlot(keys[next]);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+    }
+    keys[gap] = Simulation.NO_CELL;
+    size--;
+    return value;
+  }
+
+  /**
+   * Removes all entries.
+   */
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(keys, Simulation.NO_CELL);
+      size = 0;
+    }
+  }
+
+  private void grow() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(oldKeys.length * 2);
+    for (int slot = 0; slot < oldKeys.length; slot++) {
+      if (oldKeys[slot] != Simulation.NO_CELL) {
+        put(oldKeys[slot], oldValues[slot]);
+      }
+    }
+  }
+}
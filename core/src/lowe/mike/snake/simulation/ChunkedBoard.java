@@ -0,0 +1,222 @@
+package lowe.mike.snake.simulation;
+
+import java.util.Arrays;
+
+/**
+ * {@code ChunkedBoard} is a {@link Board} for large boards that splits the cells into square
+ * chunks, only allocating a chunk while something occupies it.
+ * <p>
+ * The number of empty cells in each chunk is kept in a Fenwick tree, so a random empty cell can be
+ * found in logarithmic time even when the board is nearly full. Rather than precomputing the
+ * neighbours of every cell, only the horizontal steps are looked up per column, so the tables grow
+ * with the width of the board rather than its area.
+ *
+ * @author Mike Lowe
+ */
+final class ChunkedBoard extends Board {
+
+  private static final int CHUNK_SHIFT = 5;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int MAXIMUM_SPARE_CHUNKS = 16;
+  private static final int MAXIMUM_SAMPLING_ATTEMPTS = 8;
+
+  // cell offset to the right and left neighbours of each column, allowing for wrapping around
+  private final int[] rightOffsets;
+  private final int[] leftOffsets;
+  private final int lastRowStart;
+  private final int chunkColumns;
+  private final byte[][] chunks;
+  private final int[] occupiedCounts;
+  // 1-based Fenwick tree of the number of empty cells in each chunk
+  private final int[] freeCountTree;
+  // released chunks are all empty, so can be reused without clearing them
+  private final byte[][] spareChunks = new byte[MAXIMUM_SPARE_CHUNKS][];
+  private int spareChunkCount;
+  private int freeCellCount;
+
+  /**
+   * Creates a new empty {@code ChunkedBoard} instance.
+   *
+   * @param columns the number of columns on the board
+   * @param rows the number of rows on the board
+   */
+  ChunkedBoard(int columns, int rows) {
+    super(columns, rows);
+    this.rightOffsets = new int[columns];
+    this.leftOffsets = new int[columns];
+    for (int column = 0; column < columns; column++) {
+      this.rightOffsets[column] = column == columns - 1 ? 1 - columns : 1;
+      this.leftOffsets[column] = column == 0 ? columns - 1 : -1;
+    }
+    this.lastRowStart = (rows - 1) * columns;
+    this.chunkColumns = (columns + CHUNK_MASK) >> CHUNK_SHIFT;
+    int chunkRows = (rows + CHUNK_MASK) >> CHUNK_SHIFT;
+    this.chunks = new byte[chunkColumns * chunkRows][];
+    this.occupiedCounts = new int[this.chunks.length];
+    this.freeCountTree = new int[this.chunks.length + 1];
+    clear();
+  }
+
+  private int getChunk(int column, int row) {
+    return (row >> CHUNK_SHIFT) * chunkColumns + (column >> CHUNK_SHIFT);
+  }
+
+  private static int getOffset(int column, int row) {
+    return ((row & CHUNK_MASK) << CHUNK_SHIFT) | (column & CHUNK_MASK);
+  }
+
+  @Override
+  public int getFreeCellCount() {
+    return freeCellCount;
+  }
+
+  @Override
+  public int getRandomFreeCell(SplitMixRandom random) {
+    if (freeCellCount == 0) {
+      return Simulation.NO_CELL;
+    }
+    // while at least half of the board is empty, sampling finds an empty cell in two attempts on
+    // average, which is cheaper than walking the tree
+    int cellCount = getCellCount();
+    if (freeCellCount >= cellCount / 2) {
+      for (int i = 0; i < MAXIMUM_SAMPLING_ATTEMPTS; i++) {
+        int cell = random.nextInt(cellCount);
+        if (get(cell) == EMPTY) {
+          return cell;
+        }
+      }
+    }
+    return getFreeCell(random.nextInt(freeCellCount));
+  }
+
+  private int getFreeCell(int index) {
+    // descend the tree to find the chunk containing the free cell with the given index
+    int chunk = 0;
+    for (int step = Integer.highestOneBit(chunks.length); step > 0; step >>= 1) {
+      int next = chunk + step;
+      if (next <= chunks.length && freeCountTree[next] <= index) {
+        chunk = next;
+        index -= freeCountTree[next];
+      }
+    }
+    return getFreeCellInChunk(chunk, index);
+  }
+
+  private int getFreeCellInChunk(int chunk, int index) {
+    byte[] cells = chunks[chunk];
+    int firstColumn = (chunk % chunkColumns) << CHUNK_SHIFT;
+    int firstRow = (chunk / chunkColumns) << CHUNK_SHIFT;
+    int lastColumn = Math.min(firstColumn + CHUNK_SIZE, getColumns());
+    int lastRow = Math.min(firstRow + CHUNK_SIZE, getRows());
+    for (int row = firstRow; row < lastRow; row++) {
+      for (int column = firstColumn; column < lastColumn; column++) {
+        if (cells == null || cells[getOffset(column, row)] == EMPTY) {
+          if (index == 0) {
+            return row * getColumns() + column;
+          }
+          index--;
+        }
+      }
+    }
+    throw new IllegalStateException("Free cell counts are out of sync");
+  }
+
+  @Override
+  public int getNeighbour(int cell, Direction direction) {
+    switch (direction) {
+      case UP:
+        return cell >= lastRowStart ? cell - lastRowStart : cell + getColumns();
+      case RIGHT:
+        return cell + rightOffsets[cell % getColumns()];
+      case DOWN:
+        return cell < getColumns() ? cell + lastRowStart : cell - getColumns();
+      default:
+        return cell + leftOffsets[cell % getColumns()];
+    }
+  }
+
+  @Override
+  public byte get(int cell) {
+    int column = cell % getColumns();
+    int row = cell / getColumns();
+    byte[] cells = chunks[getChunk(column, row)];
+    return cells == null ? EMPTY : cells[getOffset(column, row)];
+  }
+
+  @Override
+  void set(int cell, byte occupant) {
+    int column = cell % getColumns();
+    int row = cell / getColumns();
+    int chunk = getChunk(column, row);
+    int offset = getOffset(column, row);
+    byte[] cells = chunks[chunk];
+    byte previousOccupant = cells == null ? EMPTY : cells[offset];
+    if (previousOccupant == occupant) {
+      return;
+    }
+    if (cells == null) {
+      cells = obtainChunk();
+      chunks[chunk] = cells;
+    }
+    cells[offset] = occupant;
+    if (previousOccupant == EMPTY) {
+      occupiedCounts[chunk]++;
+      updateFreeCount(chunk, -1);
+    } else if (occupant == EMPTY) {
+      occupiedCounts[chunk]--;
+      updateFreeCount(chunk, 1);
+      if (occupiedCounts[chunk] == 0) {
+        releaseChunk(chunk);
+      }
+    }
+  }
+
+  private byte[] obtainChunk() {
+    if (spareChunkCount > 0) {
+      byte[] chunk = spareChunks[--spareChunkCount];
+      spareChunks[spareChunkCount] = null;
+      return chunk;
+    }
+    return new byte[CHUNK_SIZE * CHUNK_SIZE];
+  }
+
+  private void releaseChunk(int chunk) {
+    if (spareChunkCount < MAXIMUM_SPARE_CHUNKS) {
+      spareChunks[spareChunkCount++] = chunks[chunk];
+    }
+    chunks[chunk] = null;
+  }
+
+  private void updateFreeCount(int chunk, int change) {
+    freeCellCount += change;
+    for (int i = chunk + 1; i < freeCountTree.length; i += i & -i) {
+      freeCountTree[i] += change;
+    }
+  }
+
+  @Override
+  void clear() {
+    Arrays.fill(chunks, null);
+    Arrays.fill(occupiedCounts, 0);
+    // build the tree in linear time from the size of each chunk
+    Arrays.fill(freeCountTree, 0);
+    for (int chunk = 0; chunk < chunks.length; chunk++) {
+      int i = chunk + 1;
+      freeCountTree[i] += getChunkCellCount(chunk);
+      int parent = i + (i & -i);
+      if (parent < freeCountTree.length) {
+        freeCountTree[parent] += freeCountTree[i];
+      }
+    }
+    freeCellCount = getCellCount();
+  }
+
+  private int getChunkCellCount(int chunk) {
+    int firstColumn = (chunk % chunkColumns) << CHUNK_SHIFT;
+    int firstRow = (chunk / chunkColumns) << CHUNK_SHIFT;
+    int width = Math.min(CHUNK_SIZE, getColumns() - firstColumn);
+    int height = Math.min(CHUNK_SIZE, getRows() - firstRow);
+    return width * height;
+  }
+}
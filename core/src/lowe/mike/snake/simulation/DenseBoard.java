@@ -0,0 +1,164 @@
+package lowe.mike.snake.simulation;
+
+import java.util.Arrays;
+
+/**
+ * {@code DenseBoard} is a {@link Board} that stores every cell in a single array.
+ * <p>
+ * The empty cells are also kept in a bitmap, with the number of empty cells in each word of it kept
+ * in a Fenwick tree. While at least half of the board is empty a random empty cell is found by
+ * sampling, otherwise by descending the tree to the word holding it, so finding one takes
+ * logarithmic time however full the board is. Which cell is picked only depends on which cells are
+ * occupied, not on the order they were filled in, so a board that is restored from a {@link
+ * Snapshot} picks the same cells as the original. The neighbours of every cell are precomputed for
+ * each {@link Direction}.
+ *
+ * @author Mike Lowe
+ */
+final class DenseBoard extends Board {
+
+  private static final int WORD_SHIFT = 6;
+  private static final int WORD_MASK = (1 << WORD_SHIFT) - 1;
+  private static final int MAXIMUM_SAMPLING_ATTEMPTS = 8;
+
+  private final byte[] cells;
+  // a set bit for each empty cell
+  private final long[] freeWords;
+  // 1-based Fenwick tree of the number of empty cells in each word
+  private final int[] freeCountTree;
+  private int freeCellCount;
+  // indexed by direction ordinal, then cell
+  private final int[][] neighbours;
+
+  /**
+   * Creates a new empty {@code DenseBoard} instance.
+   *
+   * @param columns the number of columns on the board
+   * @param rows the number of rows on the board
+   */
+  DenseBoard(int columns, int rows) {
+    super(columns, rows);
+    this.cells = new byte[columns * rows];
+    this.freeWords = new long[(this.cells.length + WORD_MASK) >> WORD_SHIFT];
+    this.freeCountTree = new int[this.freeWords.length + 1];
+    this.neighbours = createNeighbours(columns, rows);
+    clear();
+  }
+
+  private static int[][] createNeighbours(int columns, int rows) {
+    Direction[] directions = Direction.values();
+    int[][] neighbours = new int[directions.length][columns * rows];
+    for (Direction direction : directions) {
+      int[] cells = neighbours[direction.ordinal()];
+      for (int row = 0; row < rows; row++) {
+        for (int column = 0; column < columns; column++) {
+          int nextColumn = (column + direction.getColumnOffset() + columns) % columns;
+          int nextRow = (row + direction.getRowOffset() + rows) % rows;
+          cells[row * columns + column] = nextRow * columns + nextColumn;
+        }
+      }
+    }
+    return neighbours;
+  }
+
+  @Override
+  public int getFreeCellCount() {
+    return freeCellCount;
+  }
+
+  @Override
+  public int getRandomFreeCell(SplitMixRandom random) {
+    if (freeCellCount == 0) {
+      return Simulation.NO_CELL;
+    }
+    // while at least half of the board is empty, sampling finds an empty cell in two attempts on
+    // average, which is cheaper than walking the tree
+    if (freeCellCount >= cells.length / 2) {
+      for (int i = 0; i < MAXIMUM_SAMPLING_ATTEMPTS; i++) {
+        int cell = random.nextInt(cells.length);
+        if (cells[cell] == EMPTY) {
+          return cell;
+        }
+      }
+    }
+    return getFreeCell(random.nextInt(freeCellCount));
+  }
+
+  private int getFreeCell(int index) {
+    // descend the tree to find the word containing the free cell with the given index
+    int word = 0;
+    for (int step = Integer.highestOneBit(freeWords.length); step > 0; step >>= 1) {
+      int next = word + step;
+      if (next <= freeWords.length && freeCountTree[next] <= index) {
+        word = next;
+        index -= freeCountTree[next];
+      }
+    }
+    // then halve the bits of that word until only the free cell is left
+    long bits = freeWords[word];
+    int bit = 0;
+    for (int width = Long.SIZE / 2; width > 0; width >>= 1) {
+      long lowerBits = bits & ((1L << width) - 1);
+      int count = Long.bitCount(lowerBits);
+      if (index >= count) {
+        index -= count;
+        bits >>>= width;
+        bit += width;
+      } else {
+        bits = lowerBits;
+      }
+    }
+    return (word << WORD_SHIFT) + bit;
+  }
+
+  @Override
+  public int getNeighbour(int cell, Direction direction) {
+    return neighbours[direction.ordinal()][cell];
+  }
+
+  @Override
+  public byte get(int cell) {
+    return cells[cell];
+  }
+
+  @Override
+  void set(int cell, byte occupant) {
+    if (cells[cell] == EMPTY && occupant != EMPTY) {
+      freeWords[cell >> WORD_SHIFT] &= ~(1L << cell);
+      updateFreeCount(cell >> WORD_SHIFT, -1);
+    } else if (cells[cell] != EMPTY && occupant == EMPTY) {
+      freeWords[cell >> WORD_SHIFT] |= 1L << cell;
+      updateFreeCount(cell >> WORD_SHIFT, 1);
+    }
+    cells[cell] = occupant;
+  }
+
+  private void updateFreeCount(int word, int change) {
+    freeCellCount += change;
+    for (int i = word + 1; i < freeCountTree.length; i += i & -i) {
+      freeCountTree[i] += change;
+    }
+  }
+
+  @Override
+  void clear() {
+    Arrays.fill(cells, EMPTY);
+    Arrays.fill(freeWords, -1L);
+    // bits past the last cell are never free
+    int spareBits = cells.length & WORD_MASK;
+    if (spareBits != 0) {
+      freeWords[freeWords.length - 1] = (1L << spareBits) - 1;
+    }
+    // build the tree in linear time from the number of empty cells in each word
+    Arrays.fill(freeCountTree, 0);
+    for (int word = 0; word < freeWords.length; word++) {
+      int i = word + 1;
+      freeCountTree[i] += Long.bitCount(freeWords[word]);
+      int parent = i + (i & -i);
+      if (parent < freeCountTree.length) {
+        freeCountTree[parent] += freeCountTree[i];
+      }
+    }
+    freeCellCount = cells.length;
+  }
+}
@@ -0,0 +1,40 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * Directions the snake can travel.
+ *
+ * @author Mike Lowe
+ */
+public enum Direction {
+  UP(0, 1), RIGHT(1, 0), DOWN(0, -1), LEFT(-1, 0);
+
+  private final int columnOffset;
+  private final int rowOffset;
+
+  Direction(int columnOffset, int rowOffset) {
+    this.columnOffset = columnOffset;
+    this.rowOffset = rowOffset;
+  }
+
+  /**
+   * @return the number of columns moved when travelling in this {@code Direction}
+   */
+  public int getColumnOffset() {
+    return columnOffset;
+  }
+
+  /**
+   * @return the number of rows moved when travelling in this {@code Direction}
+   */
+  public int getRowOffset() {
+    return rowOffset;
+  }
+
+  /**
+   * @param direction the other {@code Direction}
+   * @return if the given {@code Direction} is the opposite of this {@code Direction}
+   */
+  public boolean isOpposite(Direction direction) {
+    return columnOffset == -direction.columnOffset && rowOffset == -direction.rowOffset;
+  }
+}
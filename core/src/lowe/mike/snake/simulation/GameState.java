@@ -0,0 +1,102 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code GameState} is a read only view of a game in progress: the snake, the food and the bonus
+ * food, positioned on a grid of cells in the same way as a {@link Simulation}.
+ * <p>
+ * It lets a game be drawn the same way whether it is being simulated locally or mirrored from
+ * somewhere else, such as a server.
+ *
+ * @author Mike Lowe
+ */
+public interface GameState {
+
+  /**
+   * @return the number of columns on the board
+   */
+  int getColumns();
+
+  /**
+   * @return the number of rows on the board
+   */
+  int getRows();
+
+  /**
+   * @param cell the cell
+   * @return the column of the given cell
+   */
+  int getColumn(int cell);
+
+  /**
+   * @param cell the cell
+   * @return the row of the given cell
+   */
+  int getRow(int cell);
+
+  /**
+   * @return the number of cells the snake occupies, including its head
+   */
+  int getLength();
+
+  /**
+   * @param index the index of the body part, where {@code 0} is the head
+   * @return the cell the body part occupies
+   */
+  int getBodyPartCell(int index);
+
+  /**
+   * @return the cell the snake's head occupies
+   */
+  int getHeadCell();
+
+  /**
+   * @return the {@link Direction} the snake last moved in
+   */
+  Direction getLastDirection();
+
+  /**
+   * @param direction the {@link Direction}
+   * @return if the snake can turn to the given {@link Direction}
+   */
+  boolean canTurn(Direction direction);
+
+  /**
+   * @return if the snake is dead
+   */
+  boolean isSnakeDead();
+
+  /**
+   * @return if the snake has filled the board
+   */
+  boolean isBoardComplete();
+
+  /**
+   * @return the cell the food occupies, or {@link Simulation#NO_CELL} if there isn't any
+   */
+  int getFoodCell();
+
+  /**
+   * @return if the bonus food is showing
+   */
+  boolean isBonusFoodShowing();
+
+  /**
+   * @return the cell the bonus food occupies, or {@link Simulation#NO_CELL} if it isn't showing
+   */
+  int getBonusFoodCell();
+
+  /**
+   * @return the number of ticks the bonus food has left, which is also what it is worth
+   */
+  int getBonusFoodTicksRemaining();
+
+  /**
+   * @return the score
+   */
+  int getScore();
+
+  /**
+   * @return the number of ticks the snake has moved for
+   */
+  long getTicks();
+}
@@ -0,0 +1,435 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code MultiSnakeSimulation} contains the rules for many snakes sharing one board with many food
+ * items.
+ * <p>
+ * Every snake moves at the same time on each tick. A snake dies if its head moves into any snake's
+ * body, or into the same cell as another snake's head. Collisions are found through the shared
+ * {@link Board}, which records every snake's body, and a map of the cells the heads are moving
+ * into, so a tick costs time in proportion to the number of snakes still moving rather than to
+ * their total length. A dead snake's body is cleared from the board, which costs its length once.
+ * <p>
+ * The snakes' state is kept in parallel arrays indexed by snake, with each body stored as a
+ * circular buffer of cells in the same way as {@link Simulation}. The living snakes are also kept
+ * packed in a list, so a tick only visits their heads however many snakes have died. The same
+ * seed and the same sequence of {@link Direction}s always play out the same game.
+ *
+ * @author Mike Lowe
+ */
+public final class MultiSnakeSimulation {
+
+  private static final int INITIAL_NUMBER_OF_BODY_PARTS = 5;
+  private static final int INITIAL_BODY_CAPACITY = 8;
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final Board board;
+  private final SplitMixRandom random;
+  private final int snakeCount;
+  private final int foodCount;
+  private final int[][] bodies;
+  private final int[] headIndices;
+  private final int[] lengths;
+  private final int[] pendingGrowths;
+  private final Direction[] lastDirections;
+  private final Direction[] nextDirections;
+  private final boolean[] isSnakeDead;
+  private final int[] scores;
+  // the living snakes packed at the front, and the position of each living snake in that list
+  private final int[] aliveSnakes;
+  private final int[] aliveSlots;
+  // cell each snake's head is moving into on the current tick
+  private final int[] nextCells;
+  // the snake claiming each cell moved into on the current tick
+  private final CellMap claims;
+  // the slot in foodCells of each food item on the board
+  private final CellMap foodSlots;
+  private final int[] foodCells;
+  private int placedFoodCount;
+  private int aliveCount;
+  private long ticks;
+
+  /**
+   * Creates a new {@code MultiSnakeSimulation} instance.
+   *
+   * @param columns the number of columns on the board
+   * @param rows the number of rows on the board
+   * @param snakeCount the number of snakes
+   * @param foodCount the number of food items kept on the board
+   * @param seed the seed for placing snakes and food
+   */
+  public MultiSnakeSimulation(int columns, int rows, int snakeCount, int foodCount, long seed) {
+    if (columns < 2 || rows < 2 || columns > Simulation.MAXIMUM_COLUMNS ||
+        rows > Simulation.MAXIMUM_ROWS) {
+      throw new IllegalArgumentException("Board must be between 2 x 2 and " +
+          Simulation.MAXIMUM_COLUMNS + " x " + Simulation.MAXIMUM_ROWS + " cells");
+    }
+    if (snakeCount < 1 || foodCount < 1 || snakeCount + foodCount > columns * rows) {
+      throw new IllegalArgumentException("There must be room on the board for every snake and " +
+          "food item");
+    }
+    this.board = Board.create(columns, rows);
+    this.random = new SplitMixRandom(seed);
+    this.snakeCount = snakeCount;
+    this.foodCount = foodCount;
+    this.bodies = new int[snakeCount][INITIAL_BODY_CAPACITY];
+    this.headIndices = new int[snakeCount];
+    this.lengths = new int[snakeCount];
+    this.pendingGrowths = new int[snakeCount];
+    this.lastDirections = new Direction[snakeCount];
+    this.nextDirections = new Direction[snakeCount];
+    this.isSnakeDead = new boolean[snakeCount];
+    this.scores = new int[snakeCount];
+    this.aliveSnakes = new int[snakeCount];
+    this.aliveSlots = new int[snakeCount];
+    this.nextCells = new int[snakeCount];
+    this.claims = new CellMap(snakeCount);
+    this.foodSlots = new CellMap(foodCount);
+    this.foodCells = new int[foodCount];
+    reset();
+  }
+
+  /**
+   * Resets this {@code MultiSnakeSimulation} to its initial state with a new seed.
+   *
+   * @param seed the seed for placing snakes and food
+   */
+  public void reset(long seed) {
+    random.setSeed(seed);
+    reset();
+  }
+
+  /**
+   * Resets this {@code MultiSnakeSimulation} to its initial state, keeping the same seed.
+   */
+  public void reset() {
+    random.setSeed(random.getSeed());
+    board.clear();
+    aliveCount = 0;
+    for (int snake = 0; snake < snakeCount; snake++) {
+      isSnakeDead[snake] = true;
+      spawnSnake(snake);
+    }
+    foodSlots.clear();
+    for (int slot = 0; slot < foodCount; slot++) {
+      foodCells[slot] = Simulation.NO_CELL;
+    }
+    placedFoodCount = 0;
+    placeFood();
+    ticks = 0;
+  }
+
+  /**
+   * Brings a dead snake back as a new snake in a random empty cell, if there is room.
+   *
+   * @param snake the index of the snake
+   * @return if the snake was brought back
+   */
+  public boolean spawnSnake(int snake) {
+    if (!isSnakeDead[snake]) {
+      throw new IllegalStateException("Snake " + snake + " is still alive");
+    }
+    int cell = board.getRandomFreeCell(random);
+    if (cell == Simulation.NO_CELL) {
+      return false;
+    }
+    // the snake starts as just a head and grows out of it as it moves
+    headIndices[snake] = 0;
+    bodies[snake][0] = cell;
+    board.set(cell, Board.SNAKE);
+    lengths[snake] = 1;
+    pendingGrowths[snake] = INITIAL_NUMBER_OF_BODY_PARTS;
+    lastDirections[snake] = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+    nextDirections[snake] = lastDirections[snake];
+    addAliveSnake(snake);
+    return true;
+  }
+
+  private void addAliveSnake(int snake) {
+    isSnakeDead[snake] = false;
+    scores[snake] = 0;
+    aliveSlots[snake] = aliveCount;
+    aliveSnakes[aliveCount++] = snake;
+  }
+
+  /**
+   * Lays a snake out over the given cells, bringing it back if it is dead, such as to set up a
+   * position to test. Any food on those cells is removed.
+   *
+   * @param snake the index of the snake
+   * @param direction the {@link Direction} the snake last moved in
+   * @param cells the cells of the body, from the head to the tail, which must not hold a snake
+   */
+  void placeSnake(int snake, Direction direction, int... cells) {
+    if (!isSnakeDead[snake]) {
+      killSnake(snake);
+    }
+    while (bodies[snake].length < cells.length) {
+      bodies[snake] = new int[bodies[snake].length * 2];
+    }
+    int[] body = bodies[snake];
+    for (int i = 0; i < cells.length; i++) {
+      int cell = cells[i];
+      if (board.get(cell) == Board.FOOD) {
+        removeFood(cell);
+      }
+      body[cells.length - 1 - i] = cell;
+      board.set(cell, Board.SNAKE);
+    }
+    headIndices[snake] = cells.length - 1;
+    lengths[snake] = cells.length;
+    pendingGrowths[snake] = 0;
+    lastDirections[snake] = direction;
+    nextDirections[snake] = direction;
+    addAliveSnake(snake);
+  }
+
+  /**
+   * Sets the {@link Direction} to move a snake in on the next tick. If the snake cannot turn to the
+   * given {@link Direction} then it carries on in its last {@link Direction}.
+   *
+   * @param snake the index of the snake
+   * @param direction the {@link Direction}
+   */
+  public void setDirection(int snake, Direction direction) {
+    if (canTurn(snake, direction)) {
+      nextDirections[snake] = direction;
+    }
+  }
+
+  /**
+   * @param snake the index of the snake
+   * @param direction the {@link Direction}
+   * @return if the snake can turn to the given {@link Direction}; snakes cannot turn around to the
+   * opposite of the {@link Direction} they last moved in
+   */
+  public boolean canTurn(int snake, Direction direction) {
+    return direction != null && !direction.isOpposite(lastDirections[snake]);
+  }
+
+  /**
+   * Advances this {@code MultiSnakeSimulation} by one tick, moving every living snake.
+   */
+  public void step() {
+    claims.clear();
+    // work out where every head is going and which of them collide, before anything moves
+    for (int i = 0; i < aliveCount; i++) {
+      int snake = aliveSnakes[i];
+      lastDirections[snake] = nextDirections[snake];
+      int nextCell = board.getNeighbour(getHeadCell(snake), lastDirections[snake]);
+      int claimant = claims.get(nextCell);
+      if (claimant == CellMap.NO_VALUE) {
+        claims.put(nextCell, snake);
+        // tails haven't moved yet, so moving into a cell a tail is leaving is also a collision
+        nextCells[snake] = board.isSnakeOccupying(nextCell) ? Simulation.NO_CELL : nextCell;
+      } else {
+        // heads meeting in the same cell kill each other
+        nextCells[claimant] = Simulation.NO_CELL;
+        nextCells[snake] = Simulation.NO_CELL;
+      }
+    }
+    // bodies are only cleared once every head has been checked, so collisions with them are found;
+    // killing a snake moves the last one in the list into its place, so go from the back
+    for (int i = aliveCount - 1; i >= 0; i--) {
+      int snake = aliveSnakes[i];
+      if (nextCells[snake] == Simulation.NO_CELL) {
+        killSnake(snake);
+      }
+    }
+    for (int i = 0; i < aliveCount; i++) {
+      int snake = aliveSnakes[i];
+      moveSnake(snake, nextCells[snake]);
+    }
+    placeFood();
+    ticks++;
+  }
+
+  /**
+   * Kills a living snake, clearing its body from the board.
+   *
+   * @param snake the index of the snake
+   */
+  void killSnake(int snake) {
+    int[] body = bodies[snake];
+    for (int i = 0; i < lengths[snake]; i++) {
+      board.set(body[(headIndices[snake] - i) & (body.length - 1)], Board.EMPTY);
+    }
+    isSnakeDead[snake] = true;
+    int slot = aliveSlots[snake];
+    int lastSnake = aliveSnakes[--aliveCount];
+    aliveSnakes[slot] = lastSnake;
+    aliveSlots[lastSnake] = slot;
+  }
+
+  private void moveSnake(int snake, int nextCell) {
+    if (board.get(nextCell) == Board.FOOD) {
+      removeFood(nextCell);
+      scores[snake]++;
+      pendingGrowths[snake]++;
+    }
+    // growing keeps the tail where it is, otherwise the new head drops the tail
+    if (pendingGrowths[snake] > 0) {
+      ensureBodyCapacity(snake);
+      lengths[snake]++;
+      pendingGrowths[snake]--;
+    } else {
+      board.set(getTailCell(snake), Board.EMPTY);
+    }
+    int[] body = bodies[snake];
+    headIndices[snake] = (headIndices[snake] + 1) & (body.length - 1);
+    body[headIndices[snake]] = nextCell;
+    board.set(nextCell, Board.SNAKE);
+  }
+
+  private void ensureBodyCapacity(int snake) {
+    int[] body = bodies[snake];
+    int length = lengths[snake];
+    if (length < body.length) {
+      return;
+    }
+    // unwrap the buffer so the tail is at index 0 and the head at index length - 1
+    int[] newBody = new int[body.length * 2];
+    int tailIndex = (headIndices[snake] - length + 1) & (body.length - 1);
+    int tailToEnd = Math.min(length, body.length - tailIndex);
+    System.arraycopy(body, tailIndex, newBody, 0, tailToEnd);
+    System.arraycopy(body, 0, newBody, tailToEnd, length - tailToEnd);
+    bodies[snake] = newBody;
+    headIndices[snake] = length - 1;
+  }
+
+  private void removeFood(int cell) {
+    int slot = foodSlots.remove(cell);
+    // fill the gap with the last food item so the placed items stay packed at the front
+    placedFoodCount--;
+    int lastCell = foodCells[placedFoodCount];
+    foodCells[slot] = lastCell;
+    foodCells[placedFoodCount] = Simulation.NO_CELL;
+    if (lastCell != cell) {
+      foodSlots.put(lastCell, slot);
+    }
+  }
+
+  private void placeFood() {
+    while (placedFoodCount < foodCount) {
+      int cell = board.getRandomFreeCell(random);
+      // no room left, so try again on the next tick
+      if (cell == Simulation.NO_CELL) {
+        return;
+      }
+      board.set(cell, Board.FOOD);
+      foodCells[placedFoodCount] = cell;
+      foodSlots.put(cell, placedFoodCount);
+      placedFoodCount++;
+    }
+  }
+
+  /**
+   * @return the {@link Board} shared by every snake
+   */
+  public Board getBoard() {
+    return board;
+  }
+
+  /**
+   * @return the number of snakes, living or dead
+   */
+  public int getSnakeCount() {
+    return snakeCount;
+  }
+
+  /**
+   * @return the number of snakes still alive
+   */
+  public int getAliveCount() {
+    return aliveCount;
+  }
+
+  /**
+   * @param index the index in the list of living snakes, from {@code 0} to {@link
+   * #getAliveCount()}, which is reordered as snakes die
+   * @return the index of the snake
+   */
+  public int getAliveSnake(int index) {
+    return aliveSnakes[index];
+  }
+
+  /**
+   * @param snake the index of the snake
+   * @return if the snake is dead
+   */
+  public boolean isSnakeDead(int snake) {
+    return isSnakeDead[snake];
+  }
+
+  /**
+   * @param snake the index of the snake
+   * @return the number of cells the snake occupies, including its head
+   */
+  public int getLength(int snake) {
+    return lengths[snake];
+  }
+
+  /**
+   * @param snake the index of the snake
+   * @param index the index of the body part, where {@code 0} is the head
+   * @return the cell the body part occupies
+   */
+  public int getBodyPartCell(int snake, int index) {
+    int[] body = bodies[snake];
+    return body[(headIndices[snake] - index) & (body.length - 1)];
+  }
+
+  /**
+   * @param snake the index of the snake
+   * @return the cell the snake's head occupies
+   */
+  public int getHeadCell(int snake) {
+    return bodies[snake][headIndices[snake]];
+  }
+
+  /**
+   * @param snake the index of the snake
+   * @return the cell the snake's tail occupies
+   */
+  public int getTailCell(int snake) {
+    return getBodyPartCell(snake, lengths[snake] - 1);
+  }
+
+  /**
+   * @param snake the index of the snake
+   * @return the {@link Direction} the snake last moved in
+   */
+  public Direction getLastDirection(int snake) {
+    return lastDirections[snake];
+  }
+
+  /**
+   * @param snake the index of the snake
+   * @return the number of food items the snake has eaten since it was spawned
+   */
+  public int getScore(int snake) {
+    return scores[snake];
+  }
+
+  /**
+   * @return the number of food items on the board
+   */
+  public int getFoodCount() {
+    return placedFoodCount;
+  }
+
+  /**
+   * @param index the index of the food item, from {@code 0} to {@link #getFoodCount()}
+   * @return the cell the food item occupies
+   */
+  public int getFoodCell(int index) {
+    return foodCells[index];
+  }
+
+  /**
+   * @return the number of ticks played
+   */
+  public long getTicks() {
+    return ticks;
+  }
+}
@@ -0,0 +1,160 @@
+package lowe.mike.snake.simulation;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * {@code Replay} is a compact recording of a game that can be played back by a {@link
+ * ReplayPlayer}.
+ * <p>
+ * Because a {@link Simulation} is deterministic, a replay only needs the board size, level and seed
+ * the game started with, plus the ticks on which the input changed. Each change is stored as a
+ * variable length integer holding the number of ticks since the previous change and what changed,
+ * so a replay costs a few bytes per turn rather than per tick.
+ *
+ * @author Mike Lowe
+ */
+public final class Replay {
+
+  private static final int VERSION = 2;
+  private static final int SEED_BYTES = 8;
+
+  /*
+   * Codes for the events that can be recorded. Directions are stored as their ordinal.
+   */
+  static final int NO_DIRECTION = 4;
+  static final int LEVEL_CHANGE = 5;
+  static final int CODE_BITS = 3;
+  static final int CODE_MASK = (1 << CODE_BITS) - 1;
+
+  private final int columns;
+  private final int rows;
+  private final int level;
+  private final long seed;
+  private final int ticks;
+  private final byte[] events;
+
+  Replay(int columns, int rows, int level, long seed, int ticks, byte[] events) {
+    this.columns = columns;
+    this.rows = rows;
+    this.level = level;
+    this.seed = seed;
+    this.ticks = ticks;
+    this.events = events;
+  }
+
+  /**
+   * @return the number of columns on the board
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * @return the number of rows on the board
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * @return the level the game started in
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * @return the seed the game started from
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * @return the number of ticks recorded
+   */
+  public int getTicks() {
+    return ticks;
+  }
+
+  byte[] getEvents() {
+    return events;
+  }
+
+  /**
+   * @return this {@code Replay} encoded as bytes, which can be read back with {@link
+   * #fromBytes(byte[])}
+   */
+  public byte[] toBytes() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(events.length + 24);
+    output.write(VERSION);
+    writeVarint(output, columns);
+    writeVarint(output, rows);
+    writeVarint(output, level);
+    for (int i = SEED_BYTES - 1; i >= 0; i--) {
+      output.write((int) (seed >>> (i * 8)));
+    }
+    writeVarint(output, ticks);
+    output.write(events, 0, events.length);
+    return output.toByteArray();
+  }
+
+  /**
+   * Decodes a {@code Replay} from bytes created by {@link #toBytes()}.
+   *
+   * @param bytes the bytes
+   * @return the {@code Replay}
+   * @throws IllegalArgumentException if the bytes aren't a valid {@code Replay}
+   */
+  public static Replay fromBytes(byte[] bytes) {
+    int[] position = {0};
+    if (bytes.length == 0 || bytes[position[0]++] != VERSION) {
+      throw new IllegalArgumentException("Unsupported replay version");
+    }
+    int columns = readVarint(bytes, position);
+    int rows = readVarint(bytes, position);
+    int level = readVarint(bytes, position);
+    if (position[0] + SEED_BYTES > bytes.length) {
+      throw new IllegalArgumentException("Replay is truncated");
+    }
+    long seed = 0L;
+    for (int i = 0; i < SEED_BYTES; i++) {
+      seed = (seed << 8) | (bytes[position[0]++] & 0xff);
+    }
+    int ticks = readVarint(bytes, position);
+    byte[] events = new byte[bytes.length - position[0]];
+    System.arraycopy(bytes, position[0], events, 0, events.length);
+    return new Replay(columns, rows, level, seed, ticks, events);
+  }
+
+  /**
+   * Writes a non-negative {@code int} using 7 bits per byte, with the top bit set on every byte
+   * except the last.
+   */
+  static void writeVarint(ByteArrayOutputStream output, int value) {
+    while ((value & ~0x7f) != 0) {
+      output.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    output.write(value);
+  }
+
+  /**
+   * Reads an {@code int} written by {@link #writeVarint(ByteArrayOutputStream, int)}, advancing
+   * the position past it.
+   */
+  static int readVarint(byte[] bytes, int[] position) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      if (position[0] >= bytes.length) {
+        throw new IllegalArgumentException("Replay is truncated");
+      }
+      int b = bytes[position[0]++];
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint in replay");
+  }
+}
@@ -0,0 +1,109 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code ReplayPlayer} plays a {@link Replay} back by stepping a new {@link Simulation} with the
+ * recorded input.
+ *
+ * @author Mike Lowe
+ */
+public final class ReplayPlayer {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final Replay replay;
+  private final Simulation simulation;
+  private final byte[] events;
+  private final int[] position = {0};
+  private Direction direction;
+  private int level;
+  private int nextEventTick;
+  private int nextEventCode;
+  private int ticks;
+
+  /**
+   * Creates a new {@code ReplayPlayer} instance.
+   *
+   * @param replay the {@link Replay} to play
+   */
+  public ReplayPlayer(Replay replay) {
+    this.replay = replay;
+    this.simulation = new Simulation(replay.getColumns(), replay.getRows(), replay.getLevel(),
+        replay.getSeed());
+    this.events = replay.getEvents();
+    this.level = replay.getLevel();
+    readNextEventTick();
+  }
+
+  /**
+   * @return the {@link Replay} being played
+   */
+  public Replay getReplay() {
+    return replay;
+  }
+
+  /**
+   * @return the {@link Simulation} the {@link Replay} is played in
+   */
+  public Simulation getSimulation() {
+    return simulation;
+  }
+
+  /**
+   * @return the level the {@link Simulation} is currently being played in
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * @return if every recorded tick has been played
+   */
+  public boolean isFinished() {
+    return ticks >= replay.getTicks();
+  }
+
+  /**
+   * Plays the next recorded tick, if there is one.
+   */
+  public void step() {
+    if (isFinished()) {
+      return;
+    }
+    while (nextEventTick == ticks) {
+      applyEvent();
+    }
+    simulation.step(direction);
+    ticks++;
+  }
+
+  /**
+   * Plays every remaining recorded tick as fast as possible.
+   */
+  public void playToEnd() {
+    while (!isFinished()) {
+      step();
+    }
+  }
+
+  private void readNextEventTick() {
+    if (position[0] < events.length) {
+      int event = Replay.readVarint(events, position);
+      nextEventTick += event >>> Replay.CODE_BITS;
+      nextEventCode = event & Replay.CODE_MASK;
+    } else {
+      nextEventTick = Integer.MAX_VALUE;
+    }
+  }
+
+  private void applyEvent() {
+    if (nextEventCode == Replay.LEVEL_CHANGE) {
+      level = Replay.readVarint(events, position);
+      simulation.setLevel(level);
+    } else if (nextEventCode == Replay.NO_DIRECTION) {
+      direction = null;
+    } else {
+      direction = DIRECTIONS[nextEventCode];
+    }
+    readNextEventTick();
+  }
+}
@@ -0,0 +1,135 @@
+package lowe.mike.snake.simulation;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * {@code ReplayRecorder} steps a {@link Simulation} while recording its input as a {@link Replay}.
+ * <p>
+ * All steps and level changes for the recorded game must go through the {@code ReplayRecorder}.
+ *
+ * @author Mike Lowe
+ */
+public final class ReplayRecorder {
+
+  private final Simulation simulation;
+  private final int columns;
+  private final int rows;
+  private final int level;
+  private final long seed;
+  private final EventStream events = new EventStream();
+  private int currentLevel;
+  private int lastCode = -1;
+  private int lastEventTick;
+  private int ticks;
+
+  /**
+   * Creates a new {@code ReplayRecorder}, recording from the current state of the given {@link
+   * Simulation}, which should have just been created or reset.
+   *
+   * @param simulation the {@link Simulation} to record
+   */
+  public ReplayRecorder(Simulation simulation) {
+    this.simulation = simulation;
+    this.columns = simulation.getColumns();
+    this.rows = simulation.getRows();
+    this.level = simulation.getLevel();
+    this.seed = simulation.getSeed();
+    this.currentLevel = this.level;
+  }
+
+  /**
+   * Changes the level of the {@link Simulation}, recording the change.
+   *
+   * @param level the level the game is played in
+   */
+  public void setLevel(int level) {
+    if (level != currentLevel) {
+      writeEvent(Replay.LEVEL_CHANGE);
+      Replay.writeVarint(events, level);
+      currentLevel = level;
+      simulation.setLevel(level);
+    }
+  }
+
+  /**
+   * Steps the {@link Simulation} in the given {@link Direction}, recording the {@link Direction} if
+   * it differs from the last one.
+   *
+   * @param direction the {@link Direction} to move the snake in
+   */
+  public void step(Direction direction) {
+    int code = direction == null ? Replay.NO_DIRECTION : direction.ordinal();
+    if (code != lastCode) {
+      writeEvent(code);
+      lastCode = code;
+    }
+    simulation.step(direction);
+    ticks++;
+  }
+
+  /**
+   * Rewinds the recording to match the {@link Simulation}, after it has been restored to a {@link
+   * Snapshot} taken earlier in the recorded game. Everything recorded from that tick on is
+   * dropped.
+   */
+  public void rewind() {
+    int targetTicks = (int) simulation.getTicks();
+    byte[] bytes = events.getBytes();
+    int[] position = {0};
+    int eventTick = 0;
+    int keptLength = 0;
+    lastCode = -1;
+    lastEventTick = 0;
+    currentLevel = level;
+    // replay the recorded events up to the target tick to recover the recorder's state there
+    while (position[0] < events.size()) {
+      int event = Replay.readVarint(bytes, position);
+      eventTick += event >>> Replay.CODE_BITS;
+      if (eventTick >= targetTicks) {
+        break;
+      }
+      int code = event & Replay.CODE_MASK;
+      if (code == Replay.LEVEL_CHANGE) {
+        currentLevel = Replay.readVarint(bytes, position);
+      } else {
+        lastCode = code;
+      }
+      lastEventTick = eventTick;
+      keptLength = position[0];
+    }
+    events.truncate(keptLength);
+    ticks = targetTicks;
+    // the level may have been changed before the snapshot was taken in the same tick
+    if (simulation.getLevel() != currentLevel) {
+      writeEvent(Replay.LEVEL_CHANGE);
+      Replay.writeVarint(events, simulation.getLevel());
+      currentLevel = simulation.getLevel();
+    }
+  }
+
+  private void writeEvent(int code) {
+    Replay.writeVarint(events, ((ticks - lastEventTick) << Replay.CODE_BITS) | code);
+    lastEventTick = ticks;
+  }
+
+  /**
+   * @return a {@link Replay} of everything recorded so far
+   */
+  public Replay toReplay() {
+    return new Replay(columns, rows, level, seed, ticks, events.toByteArray());
+  }
+
+  /**
+   * A {@link ByteArrayOutputStream} that can be read without copying and cut short.
+   */
+  private static final class EventStream extends ByteArrayOutputStream {
+
+    byte[] getBytes() {
+      return buf;
+    }
+
+    void truncate(int size) {
+      count = size;
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code RewindBuffer} remembers the recent past of a {@link Simulation} so that it can be wound
+ * back to any of the last few ticks.
+ * <p>
+ * Rather than a copy of the whole game for every tick, it keeps a {@link Snapshot} every few ticks
+ * as a keyframe, and between keyframes only the input for each tick, which is all that changes from
+ * one tick to the next because a {@link Simulation} is deterministic. Both are kept in fixed size
+ * rings that overwrite the oldest ticks, so the memory used depends on the number of ticks that can
+ * be rewound and the length of the snake, and doesn't grow as the game goes on. Seeking restores
+ * the nearest keyframe before the tick and plays the few ticks after it again.
+ *
+ * @author Mike Lowe
+ */
+public final class RewindBuffer {
+
+  public static final int DEFAULT_KEYFRAME_INTERVAL = 16;
+
+  private static final byte NO_DIRECTION = -1;
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final int keyframeInterval;
+  // keyframe for the ticks from i * keyframeInterval is in slot i % keyframes.length
+  private final Snapshot[] keyframes;
+  // input for each tick, with the level it was played in
+  private final byte[] directions;
+  private final int[] levels;
+  private boolean isEmpty = true;
+  private long earliestTick;
+  private long endTick;
+
+  /**
+   * Creates a new {@code RewindBuffer} with the default keyframe interval.
+   *
+   * @param capacity the number of ticks that can be rewound
+   */
+  public RewindBuffer(int capacity) {
+    this(capacity, DEFAULT_KEYFRAME_INTERVAL);
+  }
+
+  /**
+   * Creates a new {@code RewindBuffer}.
+   *
+   * @param capacity the number of ticks that can be rewound
+   * @param keyframeInterval the number of ticks between keyframes, which trades the memory used
+   * against the number of ticks that are played again when seeking
+   */
+  public RewindBuffer(int capacity, int keyframeInterval) {
+    if (capacity < 1 || keyframeInterval < 1) {
+      throw new IllegalArgumentException("Capacity and keyframe interval must be positive");
+    }
+    this.keyframeInterval = keyframeInterval;
+    // one more keyframe than needed, as the oldest is partly overwritten
+    int keyframeCount = (capacity + keyframeInterval - 1) / keyframeInterval + 1;
+    this.keyframes = new Snapshot[keyframeCount];
+    for (int i = 0; i < keyframeCount; i++) {
+      this.keyframes[i] = new Snapshot();
+    }
+    this.directions = new byte[keyframeCount * keyframeInterval];
+    this.levels = new int[this.directions.length];
+  }
+
+  /**
+   * Forgets every tick recorded so far, such as when a new game is started.
+   */
+  public void clear() {
+    isEmpty = true;
+    earliestTick = 0L;
+    endTick = 0L;
+  }
+
+  /**
+   * Records the input for the next tick of the {@link Simulation}. This should be called just
+   * before the {@link Simulation} is stepped in the given {@link Direction}.
+   *
+   * @param simulation the {@link Simulation}
+   * @param direction the {@link Direction} the {@link Simulation} is about to be stepped in
+   */
+  public void record(Simulation simulation, Direction direction) {
+    long tick = simulation.getTicks();
+    if (!isEmpty && tick != endTick) {
+      // the simulation has been moved to another tick without this buffer knowing
+      clear();
+    }
+    if (isEmpty) {
+      isEmpty = false;
+      earliestTick = tick;
+      simulation.snapshot(keyframes[getKeyframeSlot(tick)]);
+    } else if (tick % keyframeInterval == 0) {
+      // this overwrites the oldest keyframe
+      earliestTick = Math.max(earliestTick, tick - (keyframes.length - 1) * keyframeInterval);
+      simulation.snapshot(keyframes[getKeyframeSlot(tick)]);
+    }
+    int slot = (int) (tick % directions.length);
+    directions[slot] = direction == null ? NO_DIRECTION : (byte) direction.ordinal();
+    levels[slot] = simulation.getLevel();
+    endTick = tick + 1;
+  }
+
+  /**
+   * @return the earliest tick that can be sought to
+   */
+  public long getEarliestTick() {
+    return isEmpty ? endTick : earliestTick;
+  }
+
+  /**
+   * @return the tick after the last one recorded
+   */
+  public long getLatestTick() {
+    return endTick;
+  }
+
+  /**
+   * Winds the {@link Simulation} back to the given tick. Everything recorded after it is
+   * forgotten, so recording carries on from there.
+   *
+   * @param simulation the {@link Simulation} this {@code RewindBuffer} has been recording
+   * @param tick the tick to seek to, between {@link #getEarliestTick()} and {@link
+   * #getLatestTick()}
+   */
+  public void seek(Simulation simulation, long tick) {
+    if (tick < getEarliestTick() || tick > endTick) {
+      throw new IllegalArgumentException("Tick " + tick + " isn't in the buffer");
+    }
+    if (tick == endTick) {
+      return;
+    }
+    Snapshot keyframe = keyframes[getKeyframeSlot(tick)];
+    simulation.restore(keyframe);
+    for (long t = keyframe.getTicks(); t < tick; t++) {
+      int slot = (int) (t % directions.length);
+      byte direction = directions[slot];
+      simulation.setLevel(levels[slot]);
+      simulation.step(direction == NO_DIRECTION ? null : DIRECTIONS[direction]);
+    }
+    // the level may have been changed just before the tick was played
+    simulation.setLevel(levels[(int) (tick % directions.length)]);
+    endTick = tick;
+  }
+
+  private int getKeyframeSlot(long tick) {
+    return (int) ((tick / keyframeInterval) % keyframes.length);
+  }
+}
@@ -0,0 +1,573 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code Simulation} contains the rules of the game: the snake, the food and the bonus food, all
+ * positioned on a grid of integer cells.
+ * <p>
+ * It has no dependencies on libGDX, so it can be stepped without a rendering context (e.g. in
+ * bots, tests and servers). Columns increase to the right and rows increase upwards, with cell
+ * {@code (0, 0)} in the bottom left corner of the board. Cells are packed into a single {@code
+ * int} as {@code row * columns + column}.
+ * <p>
+ * Each {@code Simulation} has its own seeded random number generator, so the same seed and the
+ * same sequence of {@link Direction}s always play out the same game.
+ *
+ * @author Mike Lowe
+ */
+public final class Simulation implements GameState {
+
+  public static final int DEFAULT_COLUMNS = 20;
+  public static final int DEFAULT_ROWS = 20;
+  public static final int MAXIMUM_COLUMNS = 10000;
+  public static final int MAXIMUM_ROWS = 10000;
+  public static final int NO_CELL = -1;
+  public static final int DEFAULT_BONUS_FOOD_APPEARANCE_INTERVAL = 5;
+  public static final int DEFAULT_BONUS_FOOD_TICKS = 20;
+
+  private static final int INITIAL_NUMBER_OF_BODY_PARTS = 5;
+  private static final int MAXIMUM_PREALLOCATED_BODY_CAPACITY = 1 << 16;
+
+  private final int columns;
+  private final int rows;
+  private final Board board;
+  private final SplitMixRandom random;
+  private int level;
+  private int bonusFoodAppearanceInterval = DEFAULT_BONUS_FOOD_APPEARANCE_INTERVAL;
+  private int bonusFoodTicks = DEFAULT_BONUS_FOOD_TICKS;
+  // circular buffer of cells, the tail is length - 1 slots behind the head; the capacity is
+  // always a power of two
+  private int[] body;
+  private int headIndex;
+  private int length;
+  private int pendingGrowth;
+  private Direction lastDirection;
+  private boolean isSnakeDead;
+  private boolean isBoardComplete;
+  private int foodCell;
+  private boolean isBonusFoodShowing;
+  private int bonusFoodCell;
+  private int bonusFoodTicksRemaining;
+  private int eaten;
+  private int nextBonusFoodAppearance;
+  private int score;
+  private long ticks;
+
+  /**
+   * Creates a new {@code Simulation} instance with the default board size.
+   *
+   * @param level the level the game is played in
+   * @param seed the seed for placing food
+   */
+  public Simulation(int level, long seed) {
+    this(DEFAULT_COLUMNS, DEFAULT_ROWS, level, seed);
+  }
+
+  /**
+   * Creates a new {@code Simulation} instance.
+   *
+   * @param columns the number of columns on the board
+   * @param rows the number of rows on the board
+   * @param level the level the game is played in
+   * @param seed the seed for placing food
+   */
+  public Simulation(int columns, int rows, int level, long seed) {
+    if (columns < 2 || rows < 2 || columns > MAXIMUM_COLUMNS || rows > MAXIMUM_ROWS) {
+      throw new IllegalArgumentException("Board must be between 2 x 2 and " + MAXIMUM_COLUMNS +
+          " x " + MAXIMUM_ROWS + " cells");
+    }
+    this.columns = columns;
+    this.rows = rows;
+    this.board = Board.create(columns, rows);
+    // the snake can never be longer than the board, so small boards never need to grow the body
+    int capacity = Math.min(columns * rows, MAXIMUM_PREALLOCATED_BODY_CAPACITY);
+    this.body = new int[Integer.highestOneBit(capacity - 1) << 1];
+    this.level = level;
+    this.random = new SplitMixRandom(seed);
+    reset();
+  }
+
+  /**
+   * Resets this {@code Simulation} to its initial state with a new seed.
+   *
+   * @param seed the seed for placing food
+   */
+  public void reset(long seed) {
+    random.setSeed(seed);
+    reset();
+  }
+
+  /**
+   * Resets this {@code Simulation} to its initial state, keeping the same seed so that the game
+   * can be replayed.
+   */
+  public void reset() {
+    random.setSeed(random.getSeed());
+    board.clear();
+    // the snake starts as just a head and grows out of it as it moves
+    headIndex = 0;
+    body[headIndex] = 0;
+    board.set(0, Board.SNAKE);
+    length = 1;
+    pendingGrowth = INITIAL_NUMBER_OF_BODY_PARTS;
+    lastDirection = Direction.RIGHT;
+    isSnakeDead = false;
+    isBoardComplete = false;
+    foodCell = NO_CELL;
+    isBonusFoodShowing = false;
+    bonusFoodCell = NO_CELL;
+    bonusFoodTicksRemaining = 0;
+    eaten = 0;
+    nextBonusFoodAppearance = bonusFoodAppearanceInterval;
+    score = 0;
+    ticks = 0;
+    placeFood();
+  }
+
+  /**
+   * Takes a {@link Snapshot} of the current state of this {@code Simulation}.
+   *
+   * @return the {@link Snapshot}
+   */
+  public Snapshot snapshot() {
+    return snapshot(new Snapshot());
+  }
+
+  /**
+   * Takes a {@link Snapshot} of the current state of this {@code Simulation}, reusing an existing
+   * {@link Snapshot}.
+   *
+   * @param snapshot the {@link Snapshot} to overwrite
+   * @return the given {@link Snapshot}
+   */
+  public Snapshot snapshot(Snapshot snapshot) {
+    snapshot.columns = columns;
+    snapshot.rows = rows;
+    snapshot.level = level;
+    if (snapshot.body.length < length) {
+      snapshot.body = new int[length];
+    }
+    for (int i = 0; i < length; i++) {
+      snapshot.body[i] = getBodyPartCell(length - 1 - i);
+    }
+    snapshot.length = length;
+    snapshot.pendingGrowth = pendingGrowth;
+    snapshot.lastDirection = lastDirection;
+    snapshot.isSnakeDead = isSnakeDead;
+    snapshot.isBoardComplete = isBoardComplete;
+    snapshot.foodCell = foodCell;
+    snapshot.isBonusFoodShowing = isBonusFoodShowing;
+    snapshot.bonusFoodCell = bonusFoodCell;
+    snapshot.bonusFoodTicksRemaining = bonusFoodTicksRemaining;
+    snapshot.eaten = eaten;
+    snapshot.nextBonusFoodAppearance = nextBonusFoodAppearance;
+    snapshot.score = score;
+    snapshot.ticks = ticks;
+    snapshot.seed = random.getSeed();
+    snapshot.randomState = random.getState();
+    return snapshot;
+  }
+
+  /**
+   * Restores this {@code Simulation} to the state in the given {@link Snapshot}. Only the cells
+   * occupied before and after are touched, so this costs time in proportion to the length of the
+   * snake rather than the size of the board.
+   *
+   * @param snapshot a {@link Snapshot} taken from a {@code Simulation} with the same size board
+   */
+  public void restore(Snapshot snapshot) {
+    if (snapshot.columns != columns || snapshot.rows != rows) {
+      throw new IllegalArgumentException("Snapshot is of a different size board");
+    }
+    // take everything off the board
+    for (int i = 0; i < length; i++) {
+      board.set(getBodyPartCell(i), Board.EMPTY);
+    }
+    if (foodCell != NO_CELL) {
+      board.set(foodCell, Board.EMPTY);
+    }
+    if (isBonusFoodShowing) {
+      board.set(bonusFoodCell, Board.EMPTY);
+    }
+
+    level = snapshot.level;
+    if (body.length < snapshot.length) {
+      body = new int[Integer.highestOneBit(snapshot.length - 1) << 1];
+    }
+    // lay the body out with the tail at index 0
+    System.arraycopy(snapshot.body, 0, body, 0, snapshot.length);
+    length = snapshot.length;
+    headIndex = length - 1;
+    pendingGrowth = snapshot.pendingGrowth;
+    lastDirection = snapshot.lastDirection;
+    isSnakeDead = snapshot.isSnakeDead;
+    isBoardComplete = snapshot.isBoardComplete;
+    foodCell = snapshot.foodCell;
+    isBonusFoodShowing = snapshot.isBonusFoodShowing;
+    bonusFoodCell = snapshot.bonusFoodCell;
+    bonusFoodTicksRemaining = snapshot.bonusFoodTicksRemaining;
+    eaten = snapshot.eaten;
+    nextBonusFoodAppearance = snapshot.nextBonusFoodAppearance;
+    score = snapshot.score;
+    ticks = snapshot.ticks;
+    random.setSeed(snapshot.seed);
+    random.setState(snapshot.randomState);
+
+    // and put it all back
+    for (int i = 0; i < length; i++) {
+      board.set(body[i], Board.SNAKE);
+    }
+    if (foodCell != NO_CELL) {
+      board.set(foodCell, Board.FOOD);
+    }
+    if (isBonusFoodShowing) {
+      board.set(bonusFoodCell, Board.BONUS_FOOD);
+    }
+  }
+
+  /**
+   * Advances this {@code Simulation} by one tick, moving the snake in the given {@link Direction}.
+   * If the snake cannot turn to the given {@link Direction} then it carries on in its last {@link
+   * Direction}.
+   *
+   * @param direction the {@link Direction} to move the snake in
+   */
+  public void step(Direction direction) {
+    // nothing changes once the game has finished
+    if (isSnakeDead || isBoardComplete) {
+      return;
+    }
+    if (canTurn(direction)) {
+      lastDirection = direction;
+    }
+    int nextCell = board.getNeighbour(getHeadCell(), lastDirection);
+    if (board.isSnakeOccupying(nextCell)) {
+      isSnakeDead = true;
+      return;
+    }
+    moveSnake(nextCell);
+    ticks++;
+    checkSnakeAteFood();
+    checkSnakeAteBonusFood();
+    updateBonusFoodAppearance();
+    if (length == board.getCellCount()) {
+      // the snake fills the board, so the game is won
+      isBoardComplete = true;
+    } else if (foodCell == NO_CELL) {
+      // the bonus food took the last empty cell, which may have been freed since
+      placeFood();
+    }
+  }
+
+  private void moveSnake(int nextCell) {
+    // growing keeps the tail where it is, otherwise the new head drops the tail
+    if (pendingGrowth > 0) {
+      ensureBodyCapacity();
+      length++;
+      pendingGrowth--;
+    } else {
+      board.set(getTailCell(), Board.EMPTY);
+    }
+    headIndex = (headIndex + 1) & (body.length - 1);
+    body[headIndex] = nextCell;
+    board.set(nextCell, Board.SNAKE);
+  }
+
+  private void ensureBodyCapacity() {
+    if (length < body.length) {
+      return;
+    }
+    // unwrap the buffer so the tail is at index 0 and the head at index length - 1
+    int[] newBody = new int[body.length * 2];
+    int tailIndex = (headIndex - length + 1) & (body.length - 1);
+    int tailToEnd = Math.min(length, body.length - tailIndex);
+    System.arraycopy(body, tailIndex, newBody, 0, tailToEnd);
+    System.arraycopy(body, 0, newBody, tailToEnd, length - tailToEnd);
+    body = newBody;
+    headIndex = length - 1;
+  }
+
+  private void checkSnakeAteFood() {
+    if (getHeadCell() == foodCell) {
+      placeFood();
+      score += level;
+      pendingGrowth++;
+      eaten++;
+    }
+  }
+
+  private void checkSnakeAteBonusFood() {
+    if (isBonusFoodShowing && getHeadCell() == bonusFoodCell) {
+      score += bonusFoodTicksRemaining;
+      pendingGrowth++;
+      removeBonusFood();
+    }
+  }
+
+  private void removeBonusFood() {
+    // the snake may have eaten it, in which case the cell is already taken
+    if (board.get(bonusFoodCell) == Board.BONUS_FOOD) {
+      board.set(bonusFoodCell, Board.EMPTY);
+    }
+    isBonusFoodShowing = false;
+    bonusFoodCell = NO_CELL;
+    nextBonusFoodAppearance += bonusFoodAppearanceInterval;
+  }
+
+  private void updateBonusFoodAppearance() {
+    if (isBonusFoodShowing && bonusFoodTicksRemaining <= 0) {
+      removeBonusFood();
+    } else if (isBonusFoodShowing) {
+      bonusFoodTicksRemaining--;
+    } else if (eaten == nextBonusFoodAppearance) {
+      addBonusFood();
+    }
+  }
+
+  private void addBonusFood() {
+    int cell = board.getRandomFreeCell(random);
+    // no room for bonus food, so wait for the next appearance
+    if (cell == NO_CELL) {
+      nextBonusFoodAppearance += bonusFoodAppearanceInterval;
+      return;
+    }
+    bonusFoodCell = cell;
+    board.set(bonusFoodCell, Board.BONUS_FOOD);
+    bonusFoodTicksRemaining = bonusFoodTicks;
+    isBonusFoodShowing = true;
+  }
+
+  private void placeFood() {
+    foodCell = board.getRandomFreeCell(random);
+    // nowhere left to put food, so it is placed once there is room again
+    if (foodCell != NO_CELL) {
+      board.set(foodCell, Board.FOOD);
+    }
+  }
+
+  /**
+   * @param direction the {@link Direction}
+   * @return if the snake can turn to the given {@link Direction}; the snake cannot turn around to
+   * the opposite of the {@link Direction} it last moved in
+   */
+  @Override
+  public boolean canTurn(Direction direction) {
+    return direction != null && !direction.isOpposite(lastDirection);
+  }
+
+  /**
+   * @return the seed the current game was started from
+   */
+  public long getSeed() {
+    return random.getSeed();
+  }
+
+  /**
+   * @return the level the game is played in
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * @param level the level the game is played in
+   */
+  public void setLevel(int level) {
+    this.level = level;
+  }
+
+  /**
+   * @return the {@link Board} recording what occupies each cell
+   */
+  public Board getBoard() {
+    return board;
+  }
+
+  /**
+   * Sets how many regular food items must be eaten between appearances of the bonus food. This
+   * should be set before the game is reset, and isn't recorded in {@link Replay}s.
+   *
+   * @param bonusFoodAppearanceInterval the number of regular food items between appearances
+   */
+  public void setBonusFoodAppearanceInterval(int bonusFoodAppearanceInterval) {
+    if (bonusFoodAppearanceInterval < 1) {
+      throw new IllegalArgumentException("Bonus food appearance interval must be positive");
+    }
+    this.bonusFoodAppearanceInterval = bonusFoodAppearanceInterval;
+  }
+
+  /**
+   * Sets how many ticks the bonus food stays on the board for. This should be set before the game
+   * is reset, and isn't recorded in {@link Replay}s.
+   *
+   * @param bonusFoodTicks the number of ticks the bonus food stays for
+   */
+  public void setBonusFoodTicks(int bonusFoodTicks) {
+    if (bonusFoodTicks < 0) {
+      throw new IllegalArgumentException("Bonus food ticks must not be negative");
+    }
+    this.bonusFoodTicks = bonusFoodTicks;
+  }
+
+  /**
+   * @return the number of columns on the board
+   */
+  @Override
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * @return the number of rows on the board
+   */
+  @Override
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * @return the number of cells the snake occupies, including its head
+   */
+  @Override
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * @return the number of cells the snake will grow by over the next ticks
+   */
+  public int getPendingGrowth() {
+    return pendingGrowth;
+  }
+
+  /**
+   * @param column the column
+   * @param row the row
+   * @return the cell at the given column and row
+   */
+  public int toCell(int column, int row) {
+    return row * columns + column;
+  }
+
+  /**
+   * @param cell the cell
+   * @return the column of the given cell
+   */
+  @Override
+  public int getColumn(int cell) {
+    return cell % columns;
+  }
+
+  /**
+   * @param cell the cell
+   * @return the row of the given cell
+   */
+  @Override
+  public int getRow(int cell) {
+    return cell / columns;
+  }
+
+  /**
+   * @param index the index of the body part, where {@code 0} is the head and {@code getLength() -
+   * 1} is the tail
+   * @return the cell the body part occupies
+   */
+  @Override
+  public int getBodyPartCell(int index) {
+    return body[(headIndex - index) & (body.length - 1)];
+  }
+
+  /**
+   * @return the cell the snake's head occupies
+   */
+  @Override
+  public int getHeadCell() {
+    return body[headIndex];
+  }
+
+  /**
+   * @return the cell the snake's tail occupies
+   */
+  public int getTailCell() {
+    return getBodyPartCell(length - 1);
+  }
+
+  /**
+   * @return the {@link Direction} the snake last moved in
+   */
+  @Override
+  public Direction getLastDirection() {
+    return lastDirection;
+  }
+
+  /**
+   * @return if the snake has collided with itself
+   */
+  @Override
+  public boolean isSnakeDead() {
+    return isSnakeDead;
+  }
+
+  /**
+   * @return if the snake has filled the board, meaning the game has been won
+   */
+  @Override
+  public boolean isBoardComplete() {
+    return isBoardComplete;
+  }
+
+  /**
+   * @return the cell the food occupies, or {@link #NO_CELL} if there is no room for it, such as
+   * when the board is complete or the bonus food is in the last empty cell
+   */
+  @Override
+  public int getFoodCell() {
+    return foodCell;
+  }
+
+  /**
+   * @return if the bonus food is showing
+   */
+  @Override
+  public boolean isBonusFoodShowing() {
+    return isBonusFoodShowing;
+  }
+
+  /**
+   * @return the cell the bonus food occupies, or {@link #NO_CELL} if it isn't showing
+   */
+  @Override
+  public int getBonusFoodCell() {
+    return bonusFoodCell;
+  }
+
+  /**
+   * @return the number of bonus ticks remaining
+   */
+  @Override
+  public int getBonusFoodTicksRemaining() {
+    return bonusFoodTicksRemaining;
+  }
+
+  /**
+   * @return the number of regular food items eaten
+   */
+  public int getEaten() {
+    return eaten;
+  }
+
+  /**
+   * @return the current score
+   */
+  @Override
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * @return the number of ticks the snake has moved
+   */
+  @Override
+  public long getTicks() {
+    return ticks;
+  }
+}
@@ -0,0 +1,63 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code Snapshot} is a copy of the state of a {@link Simulation} at one tick, which can be
+ * restored later to carry on from that tick.
+ * <p>
+ * It only holds primitive values and the cells of the snake's body, so taking one costs time in
+ * proportion to the length of the snake. A {@code Snapshot} can be reused for later snapshots, in
+ * which case nothing is allocated unless the snake has grown longer than it has room for.
+ *
+ * @author Mike Lowe
+ */
+public final class Snapshot {
+
+  int columns;
+  int rows;
+  int level;
+  // cells from the tail to the head
+  int[] body = new int[0];
+  int length;
+  int pendingGrowth;
+  Direction lastDirection;
+  boolean isSnakeDead;
+  boolean isBoardComplete;
+  int foodCell;
+  boolean isBonusFoodShowing;
+  int bonusFoodCell;
+  int bonusFoodTicksRemaining;
+  int eaten;
+  int nextBonusFoodAppearance;
+  int score;
+  long ticks;
+  long seed;
+  long randomState;
+
+  /**
+   * @return the number of ticks that had been played when this {@code Snapshot} was taken
+   */
+  public long getTicks() {
+    return ticks;
+  }
+
+  /**
+   * @return the length of the snake when this {@code Snapshot} was taken
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * @return the score when this {@code Snapshot} was taken
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * @return the seed of the game this {@code Snapshot} was taken from
+   */
+  public long getSeed() {
+    return seed;
+  }
+}
@@ -0,0 +1,78 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code SplitMixRandom} is a small, fast, seedable random number generator based on SplitMix64.
+ * <p>
+ * Unlike {@link java.util.Random} it isn't thread safe, which makes it cheaper, and its whole state
+ * is a single {@code long} that can be read and restored. Two instances with the same seed always
+ * produce the same sequence of numbers.
+ *
+ * @author Mike Lowe
+ */
+public final class SplitMixRandom {
+
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private long seed;
+  private long state;
+
+  /**
+   * Creates a new {@code SplitMixRandom} instance.
+   *
+   * @param seed the seed
+   */
+  public SplitMixRandom(long seed) {
+    setSeed(seed);
+  }
+
+  /**
+   * Restarts the sequence of numbers from the given seed.
+   *
+   * @param seed the seed
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+    this.state = seed;
+  }
+
+  /**
+   * @return the seed the current sequence of numbers was started from
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * @return the current state, which can be passed to {@link #setState(long)} to carry on from
+   * this point in the sequence
+   */
+  public long getState() {
+    return state;
+  }
+
+  /**
+   * @param state a state previously returned by {@link #getState()}
+   */
+  public void setState(long state) {
+    this.state = state;
+  }
+
+  /**
+   * @return the next random {@code long}
+   */
+  public long nextLong() {
+    long z = (state += GOLDEN_GAMMA);
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * @param bound the upper bound (exclusive), must be positive
+   * @return the next random {@code int} from {@code 0} inclusive to {@code bound} exclusive
+   */
+  public int nextInt(int bound) {
+    // scale 32 random bits into range by multiplying rather than dividing
+    return (int) (((nextLong() >>> 32) * bound) >>> 32);
+  }
+}
@@ -0,0 +1,90 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code TickScheduler} works out how many fixed length ticks to run for a given amount of elapsed
+ * time.
+ * <p>
+ * Time is accumulated between updates rather than dropped, so several ticks can be run in a single
+ * update when frames take longer than the tick interval. To stop slow updates from falling further
+ * and further behind, at most {@link #MAXIMUM_CATCH_UP_TIME} seconds worth of ticks are run per
+ * update and any time beyond that is discarded.
+ *
+ * @author Mike Lowe
+ */
+public final class TickScheduler {
+
+  public static final float MAXIMUM_CATCH_UP_TIME = .25f;
+
+  private float tickInterval;
+  private int maximumTicksPerUpdate;
+  private float accumulator;
+
+  /**
+   * Creates a new {@code TickScheduler} instance.
+   *
+   * @param tickInterval time in seconds between ticks
+   */
+  public TickScheduler(float tickInterval) {
+    setTickInterval(tickInterval);
+  }
+
+  /**
+   * @param tickInterval time in seconds between ticks
+   */
+  public void setTickInterval(float tickInterval) {
+    if (tickInterval <= 0f) {
+      throw new IllegalArgumentException("Tick interval must be positive");
+    }
+    this.tickInterval = tickInterval;
+    this.maximumTicksPerUpdate = Math.max(1, (int) Math.ceil(MAXIMUM_CATCH_UP_TIME / tickInterval));
+  }
+
+  /**
+   * @return time in seconds between ticks
+   */
+  public float getTickInterval() {
+    return tickInterval;
+  }
+
+  /**
+   * Adds elapsed time and works out how many ticks are now due.
+   *
+   * @param delta time in seconds since the last update
+   * @return the number of ticks to run
+   */
+  public int update(float delta) {
+    accumulator += delta;
+    int ticks = 0;
+    while (accumulator >= tickInterval && ticks < maximumTicksPerUpdate) {
+      accumulator -= tickInterval;
+      ticks++;
+    }
+    // too far behind to catch up, so give up on the time that couldn't be simulated
+    if (accumulator >= tickInterval) {
+      accumulator %= tickInterval;
+    }
+    return ticks;
+  }
+
+  /**
+   * @return how far through the current tick interval the accumulated time is, from {@code 0}
+   * inclusive to {@code 1} exclusive
+   */
+  public float getProgress() {
+    return accumulator / tickInterval;
+  }
+
+  /**
+   * @return time in seconds until the next tick is due
+   */
+  public float getTimeUntilNextTick() {
+    return Math.max(tickInterval - accumulator, 0f);
+  }
+
+  /**
+   * Discards any accumulated time.
+   */
+  public void reset() {
+    accumulator = 0f;
+  }
+}
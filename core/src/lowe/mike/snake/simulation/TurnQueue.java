@@ -0,0 +1,107 @@
+package lowe.mike.snake.simulation;
+
+/**
+ * {@code TurnQueue} holds the turns the player has asked for that haven't been made yet, so that
+ * several quick presses within one tick each get their own tick rather than only the last one
+ * counting.
+ * <p>
+ * Each turn is checked against the one queued before it, or the {@link Direction} the snake last
+ * moved in if there isn't one, so turning up then left while moving right is accepted even though
+ * left on its own would be a reversal. Each turn keeps the time it was asked for, so the delay
+ * until it is made can be measured.
+ *
+ * @author Mike Lowe
+ */
+public final class TurnQueue {
+
+  public static final int DEFAULT_CAPACITY = 3;
+
+  private final Direction[] directions;
+  private final long[] timestamps;
+  private int head;
+  private int size;
+  private long polledTimestamp;
+
+  /**
+   * Creates a new {@code TurnQueue} with the default capacity.
+   */
+  public TurnQueue() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new {@code TurnQueue}.
+   *
+   * @param capacity the number of turns that can be waiting, after which more are ignored
+   */
+  public TurnQueue(int capacity) {
+    this.directions = new Direction[capacity];
+    this.timestamps = new long[capacity];
+  }
+
+  /**
+   * Queues a turn, unless it wouldn't change anything or would turn the snake back on itself.
+   *
+   * @param direction the {@link Direction} to turn to
+   * @param lastDirection the {@link Direction} the snake last moved in
+   * @param timestamp when the turn was asked for, in nanoseconds
+   * @return if the turn was queued
+   */
+  public boolean offer(Direction direction, Direction lastDirection, long timestamp) {
+    if (direction == null || size == directions.length) {
+      return false;
+    }
+    Direction previous =
+        size == 0 ? lastDirection : directions[(head + size - 1) % directions.length];
+    if (direction == previous || direction.isOpposite(previous)) {
+      return false;
+    }
+    int index = (head + size) % directions.length;
+    directions[index] = direction;
+    timestamps[index] = timestamp;
+    size++;
+    return true;
+  }
+
+  /**
+   * Takes the oldest turn off the queue.
+   *
+   * @return the {@link Direction} of the oldest turn, or {@code null} if there aren't any
+   */
+  public Direction poll() {
+    if (size == 0) {
+      return null;
+    }
+    Direction direction = directions[head];
+    polledTimestamp = timestamps[head];
+    directions[head] = null;
+    head = (head + 1) % directions.length;
+    size--;
+    return direction;
+  }
+
+  /**
+   * @return when the turn last taken off the queue was asked for, in nanoseconds
+   */
+  public long getPolledTimestamp() {
+    return polledTimestamp;
+  }
+
+  /**
+   * @return if there aren't any turns waiting
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Forgets every turn waiting.
+   */
+  public void clear() {
+    for (int i = 0; i < directions.length; i++) {
+      directions[i] = null;
+    }
+    head = 0;
+    size = 0;
+  }
+}
@@ -0,0 +1,145 @@
+package lowe.mike.snake.util;
+
+import com.badlogic.gdx.utils.StringBuilder;
+
+/**
+ * {@code LatencyHistogram} counts latencies in buckets a tenth of a millisecond wide, so that
+ * percentiles can be worked out without keeping every sample. Recording a sample doesn't allocate,
+ * so it can be done every frame.
+ *
+ * @author Mike Lowe
+ */
+public final class LatencyHistogram {
+
+  private static final long BUCKET_NANOS = 100000L;
+  // anything slower than a second goes in the last bucket
+  private static final int BUCKET_COUNT = 10000;
+  private static final long NANOS_PER_MICRO = 1000L;
+
+  private final String name;
+  private final int[] counts = new int[BUCKET_COUNT + 1];
+  private long count;
+  private long totalNanos;
+  private long maximumNanos;
+
+  /**
+   * Creates a new empty {@code LatencyHistogram}.
+   *
+   * @param name what is being measured, which is shown alongside the percentiles
+   */
+  public LatencyHistogram(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    if (nanos < 0L) {
+      nanos = 0L;
+    }
+    counts[(int) Math.min(nanos / BUCKET_NANOS, BUCKET_COUNT)]++;
+    count++;
+    totalNanos += nanos;
+    maximumNanos = Math.max(maximumNanos, nanos);
+  }
+
+  /**
+   * @return the number of latencies recorded
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @param percentile the percentile, between 0 and 100
+   * @return the latency in nanoseconds that the given percentage of latencies are no slower than,
+   * rounded up to the top of its bucket
+   */
+  public long getPercentile(float percentile) {
+    if (count == 0L) {
+      return 0L;
+    }
+    long rank = Math.max((long) Math.ceil(count * percentile / 100f), 1L);
+    long seen = 0L;
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        return Math.min((bucket + 1) * BUCKET_NANOS, maximumNanos);
+      }
+    }
+    return maximumNanos;
+  }
+
+  /**
+   * @return the mean latency in nanoseconds
+   */
+  public long getMean() {
+    return count == 0L ? 0L : totalNanos / count;
+  }
+
+  /**
+   * @return the slowest latency in nanoseconds
+   */
+  public long getMaximum() {
+    return maximumNanos;
+  }
+
+  /**
+   * Forgets every latency recorded.
+   */
+  public void reset() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = 0;
+    }
+    count = 0L;
+    totalNanos = 0L;
+    maximumNanos = 0L;
+  }
+
+  /**
+   * Appends a one line summary of the percentiles, in milliseconds.
+   *
+   * @param text the {@link StringBuilder} to append to
+   */
+  public void appendSummary(StringBuilder text) {
+    text.append(name).append(" p50 ");
+    appendMillis(text, getPercentile(50f));
+    text.append(" p90 ");
+    appendMillis(text, getPercentile(90f));
+    text.append(" p99 ");
+    appendMillis(text, getPercentile(99f));
+    text.append(" max ");
+    appendMillis(text, maximumNanos);
+  }
+
+  /**
+   * Appends the summary followed by the count in each bucket that isn't empty, one per line, as
+   * the upper bound of the bucket in milliseconds and the count.
+   *
+   * @param text the {@link StringBuilder} to append to
+   */
+  public void appendBuckets(StringBuilder text) {
+    appendSummary(text);
+    text.append(" mean ");
+    appendMillis(text, getMean());
+    text.append(" count ").append(count).append('\n');
+    for (int bucket = 0; bucket < counts.length; bucket++) {
+      if (counts[bucket] > 0) {
+        if (bucket == BUCKET_COUNT) {
+          text.append('>');
+        }
+        appendMillis(text, Math.min(bucket + 1, BUCKET_COUNT) * BUCKET_NANOS);
+        text.append(' ').append(counts[bucket]).append('\n');
+      }
+    }
+  }
+
+  private static void appendMillis(StringBuilder text, long nanos) {
+    // to a tenth of a millisecond, without the garbage of formatting a float
+    long tenths = (nanos / NANOS_PER_MICRO + 50L) / 100L;
+    text.append(tenths / 10L).append('.').append((int) (tenths % 10L));
+  }
+}
@@ -55,6 +55,16 @@ public final class ScreenManager {
     }
   }
 
+  /**
+   * Resumes every {@link Screen}, not only the one being displayed, as the ones underneath it may
+   * hold graphics that were lost while the {@link Game} was paused.
+   */
+  public static void resumeAllScreens() {
+    for (Screen screen : screens) {
+      screen.resume();
+    }
+  }
+
   /**
    * Disposes and clears all {@link Screen}s.
    */
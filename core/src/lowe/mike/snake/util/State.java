@@ -3,6 +3,7 @@ package lowe.mike.snake.util;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Preferences;
 import lowe.mike.snake.SnakeGame;
+import lowe.mike.snake.world.BoardSize;
 import lowe.mike.snake.world.Level;
 
 /**
@@ -17,9 +18,12 @@ public final class State {
   private static Preferences preferences;
   private static boolean shouldPlayMusic;
   private static int level;
+  private static int boardSize;
   private static int highScore;
   private static int currentScore;
   private static boolean isGameOver;
+  private static boolean isBoardComplete;
+  private static String serverAddress;
 
   // don't want instances
   private State() {
@@ -32,9 +36,11 @@ public final class State {
     preferences = Gdx.app.getPreferences(SnakeGame.TITLE);
     shouldPlayMusic = preferences.getBoolean("play-music", true);
     level = preferences.getInteger("level", Level.MINIMUM);
+    boardSize = preferences.getInteger("board-size", BoardSize.DEFAULT);
     highScore = preferences.getInteger("high-score");
     currentScore = 0;
     isGameOver = false;
+    isBoardComplete = false;
   }
 
   /**
@@ -71,6 +77,23 @@ public final class State {
     }
   }
 
+  /**
+   * @return the number of cells along each side of the board to play the game on
+   */
+  public static int getBoardSize() {
+    return boardSize;
+  }
+
+  /**
+   * @param boardSize the number of cells along each side of the board to play the game on
+   */
+  public static void setBoardSize(int boardSize) {
+    if (State.boardSize != boardSize) {
+      State.boardSize = boardSize;
+      preferences.putInteger("board-size", State.boardSize).flush();
+    }
+  }
+
   /**
    * @return the high score
    */
@@ -115,4 +138,32 @@ public final class State {
   public static void setGameOver(boolean isGameOver) {
     State.isGameOver = isGameOver;
   }
+
+  /**
+   * @return if the game was won by filling the board
+   */
+  public static boolean isBoardComplete() {
+    return isBoardComplete;
+  }
+
+  /**
+   * @param isBoardComplete if the game was won by filling the board
+   */
+  public static void setBoardComplete(boolean isBoardComplete) {
+    State.isBoardComplete = isBoardComplete;
+  }
+
+  /**
+   * @return the address of the server to play on, or {@code null} to play locally
+   */
+  public static String getServerAddress() {
+    return serverAddress;
+  }
+
+  /**
+   * @param serverAddress the address of the server to play on, or {@code null} to play locally
+   */
+  public static void setServerAddress(String serverAddress) {
+    State.serverAddress = serverAddress;
+  }
 }
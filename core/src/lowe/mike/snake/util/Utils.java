@@ -10,6 +10,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.StringBuilder;
 
 /**
  * {@code Utils} provides useful helper methods that are repeatedly used in the game.
@@ -23,6 +24,9 @@ public final class Utils {
   private static final Color PRIMARY_FONT_COLOR = new Color(0xffffffff);
   private static final Color SECONDARY_FONT_COLOR = new Color(0x727272ff);
 
+  // reused so updating labels doesn't create garbage
+  private static final StringBuilder LABEL_TEXT = new StringBuilder();
+
   // don't want instances
   private Utils() {
   }
@@ -61,7 +65,21 @@ public final class Utils {
    * @param number the number to set the {@link Label}'s text to
    */
   public static void updateNumberLabel(Label label, int number) {
-    label.setText(Integer.toString(number));
+    updateNumberLabel(label, number, 0);
+  }
+
+  /**
+   * Sets a {@link Label}'s text to a given number, padded with leading zeros to a minimum number
+   * of digits.
+   *
+   * @param label the {@link Label} to update
+   * @param number the number to set the {@link Label}'s text to
+   * @param digits the minimum number of digits to show
+   */
+  public static void updateNumberLabel(Label label, int number, int digits) {
+    LABEL_TEXT.setLength(0);
+    LABEL_TEXT.append(number, digits, '0');
+    label.setText(LABEL_TEXT);
   }
 
   /**
@@ -80,6 +98,7 @@ public final class Utils {
     style.fontColor = PRIMARY_FONT_COLOR;
     style.downFontColor = SECONDARY_FONT_COLOR;
     style.overFontColor = style.downFontColor;
+    style.disabledFontColor = style.downFontColor;
     if (checkable) {
       style.checkedFontColor = style.downFontColor;
     }
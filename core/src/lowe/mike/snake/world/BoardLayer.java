@@ -0,0 +1,194 @@
+package lowe.mike.snake.world;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.viewport.Viewport;
+import lowe.mike.snake.simulation.GameState;
+import lowe.mike.snake.util.Assets;
+
+/**
+ * {@code BoardLayer} keeps the snake's body drawn in an offscreen {@link FrameBuffer} covering the
+ * board, so each frame only needs to draw that one texture.
+ * <p>
+ * The {@link FrameBuffer} is only touched when the game has ticked: the cells the tail has left are
+ * cleared and the cells the head has moved into are drawn, so the cost of a frame doesn't depend on
+ * the length of the snake or the size of the board. To know which cells the tail has left, the
+ * cells drawn are kept in a ring in the same order as the body.
+ *
+ * @author Mike Lowe
+ */
+final class BoardLayer implements Disposable {
+
+  private static final int MAXIMUM_TEXTURE_SIZE = 2048;
+
+  private final World world;
+  private final Viewport viewport;
+  private final FrameBuffer frameBuffer;
+  private final TextureRegion texture;
+  private final Matrix4 projection = new Matrix4();
+  private final Matrix4 batchProjection = new Matrix4();
+  private final Color batchColor = new Color();
+  // the cells drawn, from the tail at tailSlot round to the head
+  private final int[] cells;
+  private int tailSlot;
+  private int length;
+  private int skippedParts;
+  private GameState state;
+  private long ticks = -1;
+
+  /**
+   * Creates a new {@code BoardLayer} instance.
+   *
+   * @param world the {@link World} to position cells in
+   * @param viewport the {@link Viewport} the board is drawn in
+   * @param capacity the longest snake that can be drawn
+   * @throws com.badlogic.gdx.utils.GdxRuntimeException if the {@link FrameBuffer} can't be created
+   */
+  BoardLayer(World world, Viewport viewport, int capacity) {
+    this.world = world;
+    this.viewport = viewport;
+    Rectangle bounds = world.getBounds();
+    this.frameBuffer = new FrameBuffer(Pixmap.Format.RGBA8888,
+        getTextureSize(bounds.width, viewport), getTextureSize(bounds.height, viewport), false);
+    this.texture = new TextureRegion(this.frameBuffer.getColorBufferTexture());
+    // frame buffers are upside down
+    this.texture.flip(false, true);
+    this.projection.setToOrtho2D(bounds.x, bounds.y, bounds.width, bounds.height);
+    this.cells = new int[capacity];
+  }
+
+  private static int getTextureSize(float size, Viewport viewport) {
+    // match the resolution of the screen, so the cells are as sharp as when drawn directly
+    float scale = Math.max(viewport.getScreenWidth() / viewport.getWorldWidth(), 1f);
+    return Math.min((int) Math.ceil(size * scale), MAXIMUM_TEXTURE_SIZE);
+  }
+
+  /**
+   * @return if the resolution of the {@link FrameBuffer} still matches the {@link Viewport}'s
+   */
+  boolean isResolutionCurrent() {
+    Rectangle bounds = world.getBounds();
+    return frameBuffer.getWidth() == getTextureSize(bounds.width, viewport) &&
+        frameBuffer.getHeight() == getTextureSize(bounds.height, viewport);
+  }
+
+  /**
+   * @return the longest snake that can be drawn
+   */
+  int getCapacity() {
+    return cells.length;
+  }
+
+  /**
+   * Makes the next update draw every cell again, such as when the game has been reset or restored.
+   */
+  void invalidate() {
+    ticks = -1;
+  }
+
+  /**
+   * @param state the {@link GameState} to draw the body of
+   * @param skippedParts the number of body parts from the head not to draw
+   * @return if the body has changed since the last update
+   */
+  boolean needsUpdate(GameState state, int skippedParts) {
+    return state != this.state || state.getTicks() != ticks || skippedParts != this.skippedParts;
+  }
+
+  /**
+   * Draws the cells that have changed since the last update into the {@link FrameBuffer}. The
+   * {@link Batch} mustn't be drawing.
+   *
+   * @param batch the {@link Batch} to draw with
+   * @param state the {@link GameState} to draw the body of
+   * @param skippedParts the number of body parts from the head not to draw
+   */
+  void update(Batch batch, GameState state, int skippedParts) {
+    batchProjection.set(batch.getProjectionMatrix());
+    batchColor.set(batch.getColor());
+    frameBuffer.begin();
+    batch.setProjectionMatrix(projection);
+    // cells never overlap, and clearing a cell relies on writing transparent pixels
+    batch.disableBlending();
+    long moves = state.getTicks() - ticks;
+    int newLength = state.getLength() - skippedParts;
+    if (state != this.state || ticks < 0 || moves < 0 || moves >= newLength ||
+        skippedParts != this.skippedParts) {
+      redraw(batch, state, skippedParts, newLength);
+    } else {
+      batch.begin();
+      // clear the cells the tail has left first, as the head may have moved into one of them
+      int dropped = length + (int) moves - newLength;
+      batch.setColor(Color.CLEAR);
+      for (int i = 0; i < dropped; i++) {
+        drawCell(batch, cells[tailSlot]);
+        tailSlot = nextSlot(tailSlot);
+      }
+      // then draw the new positions nearest the head, from oldest to newest
+      batch.setColor(Color.WHITE);
+      int headSlot = (tailSlot + length - dropped) % cells.length;
+      for (int i = (int) moves - 1; i >= 0; i--) {
+        int cell = state.getBodyPartCell(skippedParts + i);
+        cells[headSlot] = cell;
+        drawCell(batch, cell);
+        headSlot = nextSlot(headSlot);
+      }
+      batch.end();
+    }
+    frameBuffer.end(viewport.getScreenX(), viewport.getScreenY(), viewport.getScreenWidth(),
+        viewport.getScreenHeight());
+    batch.enableBlending();
+    batch.setColor(batchColor);
+    batch.setProjectionMatrix(batchProjection);
+    this.state = state;
+    ticks = state.getTicks();
+    length = newLength;
+    this.skippedParts = skippedParts;
+  }
+
+  private void redraw(Batch batch, GameState state, int skippedParts, int newLength) {
+    Gdx.gl.glClearColor(0f, 0f, 0f, 0f);
+    Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+    batch.begin();
+    batch.setColor(Color.WHITE);
+    for (int i = 0; i < newLength; i++) {
+      int cell = state.getBodyPartCell(skippedParts + newLength - 1 - i);
+      cells[i] = cell;
+      drawCell(batch, cell);
+    }
+    batch.end();
+    tailSlot = 0;
+  }
+
+  private int nextSlot(int slot) {
+    return slot + 1 == cells.length ? 0 : slot + 1;
+  }
+
+  private void drawCell(Batch batch, int cell) {
+    batch.draw(Assets.getBlock(), world.getCellX(cell), world.getCellY(cell),
+        world.getCellWidth(), world.getCellHeight());
+  }
+
+  /**
+   * Draws the {@link FrameBuffer} over the board.
+   *
+   * @param batch the {@link Batch} to draw with, which must be drawing
+   */
+  void draw(Batch batch) {
+    Rectangle bounds = world.getBounds();
+    batch.draw(texture, bounds.x, bounds.y, bounds.width, bounds.height);
+  }
+
+  @Override
+  public void dispose() {
+    frameBuffer.dispose();
+  }
+}
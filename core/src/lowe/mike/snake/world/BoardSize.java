@@ -0,0 +1,20 @@
+package lowe.mike.snake.world;
+
+/**
+ * {@code BoardSize} stores the default, minimum and maximum number of cells along each side of
+ * the board the game can be played on. Sizes go up in powers of two from the minimum.
+ * <p>
+ * Instances of {@code BoardSize} cannot be created.
+ *
+ * @author Mike Lowe
+ */
+public final class BoardSize {
+
+  // don't want instances
+  private BoardSize() {
+  }
+
+  public static final int DEFAULT = 20;
+  public static final int MINIMUM = 10;
+  public static final int MAXIMUM = 160;
+}
@@ -19,11 +19,17 @@ final class BonusFood extends Food {
    * @param delta time in seconds since the last frame
    */
   void updateFlash(float delta) {
+    flashTick += delta;
     if (flashTick >= FLASH_TICK_INTERVAL) {
-      flashTick -= FLASH_TICK_INTERVAL;
+      flashTick %= FLASH_TICK_INTERVAL;
       setVisible(!isVisible());
-    } else {
-      flashTick += delta;
     }
   }
+
+  /**
+   * @return time in seconds until this {@code BonusFood} next flashes
+   */
+  float getTimeUntilNextFlash() {
+    return FLASH_TICK_INTERVAL - flashTick;
+  }
 }
@@ -1,7 +1,8 @@
 package lowe.mike.snake.world;
 
 /**
- * {@code Level} stores the minimum and maximum levels the game can be played in.
+ * {@code Level} stores the minimum and maximum levels the game can be played in, and how fast the
+ * game ticks in each of them.
  * <p>
  * Instances of {@code Level} cannot be created.
  *
@@ -15,4 +16,14 @@ public final class Level {
 
   public static final int MINIMUM = 1;
   public static final int MAXIMUM = 9;
+
+  private static final float TICK_INTERVAL_INCREMENT = .075f;
+
+  /**
+   * @param level the level
+   * @return time in seconds between ticks in the given level
+   */
+  public static float getTickInterval(int level) {
+    return (MAXIMUM + 1 - level) * TICK_INTERVAL_INCREMENT;
+  }
 }
@@ -1,208 +1,140 @@
 package lowe.mike.snake.world;
 
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.scenes.scene2d.Actor;
-import com.badlogic.gdx.scenes.scene2d.ui.Image;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import lowe.mike.snake.simulation.GameState;
+import lowe.mike.snake.simulation.Simulation;
 import lowe.mike.snake.util.Assets;
 
 /**
- * {@code Snake} instances represent the snake to be controlled by the player.
+ * {@code Snake} instances draw the snake controlled by the player, as positioned by the {@link
+ * Simulation} or other {@link GameState}.
+ * <p>
+ * The body is kept drawn in a {@link BoardLayer}, which only redraws the cells that changed each
+ * tick, so each frame draws one texture however long the snake is. Where a {@link BoardLayer}
+ * can't be created, the body is drawn straight from the cells held by the {@link GameState}, with
+ * one block drawn per cell. A {@link SnakeMesh} can be used instead, which keeps the cells on the
+ * GPU between frames.
+ * <p>
+ * Between ticks the head and tail can be drawn part of the way through their last move, so the
+ * snake moves smoothly at any frame rate however slowly the game ticks. Only those two blocks move,
+ * so the rest of the body is drawn in whichever way it would be otherwise.
  *
  * @author Mike Lowe
  */
-final class Snake extends Actor {
+final class Snake extends Actor implements Disposable {
 
-  private static final int INITIAL_NUMBER_OF_BODY_PARTS = 5;
   private static final float FLASH_TICK_INTERVAL = .1f;
   private static final int NUMBER_OF_FLASHES = 10;
 
-  /**
-   * Directions the {@code Snake} can travel.
-   */
-  enum Direction {
-    UP, RIGHT, DOWN, LEFT
-  }
-
-  private final Image head;
-  private final Array<Image> bodyParts = new Array<Image>();
-  private Direction currentDirection = Direction.RIGHT;
-  private Direction lastDirection = currentDirection;
-  private boolean isDying;
+  private final World world;
+  private GameState state;
+  private boolean isMeshRendering;
+  private SnakeMesh mesh;
+  private BoardLayer layer;
+  private boolean isLayerUnavailable;
+  private final Matrix4 projection = new Matrix4();
   private boolean isDead;
   private float flashTick;
   private int timesFlashed;
 
   /**
    * Creates a new {@code Snake} instance.
+   *
+   * @param world the {@link World} to position body parts in
    */
-  Snake() {
-    this.head = new Image(Assets.getBlock());
-    initialise();
-  }
-
-  private void initialise() {
-    head.setPosition(World.BOUNDS.x, World.BOUNDS.y);
-    initialiseBodyParts();
-  }
-
-  private void initialiseBodyParts() {
-    for (int i = 1; i <= INITIAL_NUMBER_OF_BODY_PARTS; i++) {
-      Image bodyPart = new Image(Assets.getBlock());
-      float x = head.getX() - (i * World.GRID_CELL_WIDTH);
-      float y = head.getY();
-      bodyPart.setPosition(x, y);
-      bodyParts.add(bodyPart);
-    }
+  Snake(World world) {
+    this.world = world;
   }
 
   /**
    * Resets this {@code Snake} to its initial state.
    */
   void reset() {
-    bodyParts.clear();
-    currentDirection = Direction.RIGHT;
-    lastDirection = currentDirection;
-    isDying = false;
+    if (mesh != null) {
+      mesh.invalidate();
+    }
+    if (layer != null) {
+      layer.invalidate();
+    }
     isDead = false;
     flashTick = 0f;
     timesFlashed = 0;
     setVisible(true);
-    initialise();
   }
 
   /**
-   * @return this {@code Snake}'s head
+   * Drops the {@link BoardLayer} if it no longer matches the resolution of the screen, so that it
+   * is created again at the new resolution for the next frame.
    */
-  Image getHead() {
-    return head;
+  void resize() {
+    if (layer != null && !layer.isResolutionCurrent()) {
+      resetLayer();
+    }
   }
 
   /**
-   * @return if this {@code Snake} is dying
+   * Drops the {@link BoardLayer}, so that it is created again for the next frame. Its contents are
+   * lost with the GL context when an Android app is paused, so this is done when the game resumes.
    */
-  boolean isDying() {
-    return isDying;
+  void resetLayer() {
+    if (layer != null) {
+      layer.dispose();
+      layer = null;
+    }
   }
 
   /**
-   * @return if this {@code Snake} is dead
+   * Creates the {@link SnakeMesh}'s GL resources again when the game resumes, if the GL context may
+   * have been lost while it was paused.
    */
-  boolean isDead() {
-    return isDead;
+  void restoreMesh() {
+    // only Android loses the context when paused, and elsewhere the old resources are still in use
+    if (mesh != null && Gdx.app.getType() == Application.ApplicationType.Android) {
+      mesh.restore();
+    }
   }
 
   /**
-   * Updates this {@code Snake}'s position and state.
+   * @return if this {@code Snake} has finished its death sequence
    */
-  void updatePositionAndState() {
-    // don't need to update anything if the snake is dying or dead
-    if (isDying || isDead) {
-      return;
-    }
-    Vector2 nextHeadPosition = calculateNextHeadPosition();
-    if (isBodyPartOccupyingPosition(nextHeadPosition.x, nextHeadPosition.y)) {
-      isDying = true;
-    } else {
-      updatePosition(nextHeadPosition);
-      lastDirection = currentDirection;
-    }
-  }
-
-  private Vector2 calculateNextHeadPosition() {
-    Vector2 position = new Vector2(head.getX(), head.getY());
-    switch (currentDirection) {
-      case UP:
-        position.y = head.getY() + World.GRID_CELL_HEIGHT;
-        break;
-      case RIGHT:
-        position.x = head.getX() + World.GRID_CELL_WIDTH;
-        break;
-      case DOWN:
-        position.y = head.getY() - World.GRID_CELL_HEIGHT;
-        break;
-      case LEFT:
-        position.x = head.getX() - World.GRID_CELL_WIDTH;
-        break;
-    }
-    ensurePositionIsInBounds(position);
-    return position;
-  }
-
-  private void ensurePositionIsInBounds(Vector2 position) {
-    if (position.x < World.BOUNDS.x) {
-      position.x = World.BOUNDS.width + World.BOUNDS.x - World.GRID_CELL_WIDTH;
-    } else if (position.x >= World.BOUNDS.width + World.BOUNDS.x) {
-      position.x = World.BOUNDS.x;
-    } else if (position.y < World.BOUNDS.y) {
-      position.y = World.BOUNDS.height + World.BOUNDS.y - World.GRID_CELL_HEIGHT;
-    } else if (position.y >= World.BOUNDS.height + World.BOUNDS.y) {
-      position.y = World.BOUNDS.y;
-    }
+  boolean isDead() {
+    return isDead;
   }
 
   /**
-   * @param x the x position
-   * @param y the y position
-   * @return if this {@code Snake}'s head is occupying the given position
+   * @param state the {@link GameState} to draw the body of
    */
-  boolean isHeadOccupyingPosition(float x, float y) {
-    return head.getX() == x && head.getY() == y;
+  void setState(GameState state) {
+    this.state = state;
   }
 
   /**
-   * @param x the x position
-   * @param y the y position
-   * @return if any of this {@code Snake}'s body parts are occupying the given position
+   * @param isMeshRendering if the body should be drawn with a {@link SnakeMesh}
    */
-  boolean isBodyPartOccupyingPosition(float x, float y) {
-    for (Image bodyPart : bodyParts) {
-      if (bodyPart.getX() == x && bodyPart.getY() == y) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  private void updatePosition(Vector2 nextHeadPosition) {
-    // shift body parts forward
-    for (int i = bodyParts.size - 1; i >= 1; i--) {
-      Image nextBodyPart = bodyParts.get(i - 1);
-      Image currentBodyPart = bodyParts.get(i);
-      currentBodyPart.setPosition(nextBodyPart.getX(), nextBodyPart.getY());
-    }
-    // make sure first body part moves to head position
-    bodyParts.first().setPosition(head.getX(), head.getY());
-    // update the head position
-    head.setPosition(nextHeadPosition.x, nextHeadPosition.y);
+  void setMeshRendering(boolean isMeshRendering) {
+    this.isMeshRendering = isMeshRendering;
   }
 
   /**
-   * Sets the {@link Direction} of this {@code Snake}. Note that the {@code Snake} cannot turn
-   * around to the opposite direction. So, for example, if the {@code Snake} is traveling upwards,
-   * then is cannot go downwards.
-   *
-   * @param currentDirection the {@link Direction}
+   * @return if the body is drawn with a {@link SnakeMesh}
    */
-  void setCurrentDirection(Direction currentDirection) {
-    // don't let snake turn around into the opposite direction
-    if (currentDirection == Direction.UP && lastDirection != Snake.Direction.DOWN ||
-        currentDirection == Direction.RIGHT && lastDirection != Snake.Direction.LEFT ||
-        currentDirection == Direction.DOWN && lastDirection != Snake.Direction.UP ||
-        currentDirection == Direction.LEFT && lastDirection != Snake.Direction.RIGHT) {
-      this.currentDirection = currentDirection;
-    }
+  boolean isMeshRendering() {
+    return isMeshRendering;
   }
 
   /**
-   * Adds a new body part to the end of this {@code Snake}.
+   * @return the {@link SnakeMesh} the body was last drawn with, or {@code null} if it hasn't been
    */
-  void addBodyPart() {
-    Image newBodyPart = new Image(Assets.getBlock());
-    Image lastBodyPart = bodyParts.peek();
-    newBodyPart.setPosition(lastBodyPart.getX(), lastBodyPart.getY());
-    bodyParts.add(newBodyPart);
+  SnakeMesh getMesh() {
+    return mesh;
   }
 
   /**
@@ -214,7 +146,6 @@ final class Snake extends Actor {
     // if snake has flashed the required amount of times, then it has finished dying
     if (timesFlashed >= NUMBER_OF_FLASHES) {
       isDead = true;
-      isDying = false;
     }
     // make snake flash when appropriate
     if (flashTick >= FLASH_TICK_INTERVAL) {
@@ -230,10 +161,116 @@ final class Snake extends Actor {
 
   @Override
   public void draw(Batch batch, float parentAlpha) {
-    super.draw(batch, parentAlpha);
-    head.draw(batch, parentAlpha);
-    for (Image bodyPart : bodyParts) {
-      bodyPart.draw(batch, parentAlpha);
+    if (state == null) {
+      return;
+    }
+    float progress = world.getInterpolation();
+    int length = state.getLength();
+    // while part way through a move the head is drawn on its way from the cell behind it
+    int skippedParts = progress < 1f && length > 1 ? 1 : 0;
+    Color color = getColor();
+    if (isMeshRendering && prepareMesh()) {
+      drawMesh(batch, parentAlpha, skippedParts);
+    } else if (prepareLayer()) {
+      drawLayer(batch, parentAlpha, skippedParts);
+    } else {
+      batch.setColor(color.r, color.g, color.b, color.a * parentAlpha);
+      for (int i = skippedParts; i < length; i++) {
+        drawCell(batch, state.getBodyPartCell(i));
+      }
+    }
+    if (skippedParts > 0) {
+      batch.setColor(color.r, color.g, color.b, color.a * parentAlpha);
+      drawMoving(batch, state.getBodyPartCell(1), state.getHeadCell(), progress);
+      int tailCell = state.getBodyPartCell(length - 1);
+      int previousTailCell = world.getPreviousTailCell();
+      if (previousTailCell != tailCell) {
+        drawMoving(batch, previousTailCell, tailCell, progress);
+      }
+    }
+  }
+
+  private void drawCell(Batch batch, int cell) {
+    batch.draw(Assets.getBlock(), world.getCellX(cell), world.getCellY(cell),
+        world.getCellWidth(), world.getCellHeight());
+  }
+
+  private void drawMoving(Batch batch, int fromCell, int toCell, float progress) {
+    int columns = Math.abs(state.getColumn(toCell) - state.getColumn(fromCell));
+    int rows = Math.abs(state.getRow(toCell) - state.getRow(fromCell));
+    if (columns + rows != 1) {
+      // moved off one edge of the board onto the other, so jump across half way through
+      drawCell(batch, progress < .5f ? fromCell : toCell);
+      return;
+    }
+    float x = MathUtils.lerp(world.getCellX(fromCell), world.getCellX(toCell), progress);
+    float y = MathUtils.lerp(world.getCellY(fromCell), world.getCellY(toCell), progress);
+    batch.draw(Assets.getBlock(), x, y, world.getCellWidth(), world.getCellHeight());
+  }
+
+  private boolean prepareMesh() {
+    int cellCount = Math.min(state.getColumns() * state.getRows(), SnakeMesh.MAXIMUM_CELLS);
+    if (mesh == null || mesh.getCapacity() < cellCount) {
+      if (mesh != null) {
+        mesh.dispose();
+      }
+      mesh = new SnakeMesh(world, cellCount);
+    }
+    return state.getLength() <= mesh.getCapacity();
+  }
+
+  private void drawMesh(Batch batch, float parentAlpha, int skippedParts) {
+    // the mesh is drawn with its own shader, so whatever has been batched so far goes first
+    batch.end();
+    mesh.update(state);
+    projection.set(batch.getProjectionMatrix()).mul(batch.getTransformMatrix());
+    Color color = getColor();
+    float alpha = color.a;
+    color.a *= parentAlpha;
+    mesh.render(projection, color, skippedParts);
+    color.a = alpha;
+    batch.begin();
+  }
+
+  private boolean prepareLayer() {
+    if (isLayerUnavailable || getStage() == null) {
+      return false;
+    }
+    int cellCount = state.getColumns() * state.getRows();
+    if (layer == null || layer.getCapacity() < cellCount) {
+      if (layer != null) {
+        layer.dispose();
+        layer = null;
+      }
+      try {
+        layer = new BoardLayer(world, getStage().getViewport(), cellCount);
+      } catch (GdxRuntimeException e) {
+        // frame buffers aren't supported everywhere, so fall back to drawing every cell
+        isLayerUnavailable = true;
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void drawLayer(Batch batch, float parentAlpha, int skippedParts) {
+    if (layer.needsUpdate(state, skippedParts)) {
+      // the layer is drawn into with the same batch, so whatever has been batched so far goes first
+      batch.end();
+      layer.update(batch, state, skippedParts);
+      batch.begin();
+    }
+    Color color = getColor();
+    batch.setColor(color.r, color.g, color.b, color.a * parentAlpha);
+    layer.draw(batch);
+  }
+
+  @Override
+  public void dispose() {
+    if (mesh != null) {
+      mesh.dispose();
+      mesh = null;
     }
+    resetLayer();
   }
 }
@@ -0,0 +1,287 @@
+package lowe.mike.snake.world;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.nio.FloatBuffer;
+import lowe.mike.snake.simulation.GameState;
+import lowe.mike.snake.util.Assets;
+
+/**
+ * {@code SnakeMesh} draws the body of a snake from a vertex buffer that stays on the GPU between
+ * frames, for snakes too long to send to a {@link com.badlogic.gdx.graphics.g2d.SpriteBatch} every
+ * frame.
+ * <p>
+ * The buffer is a ring of quads in the same order as the body. Each tick only the quads for the
+ * cells the head has moved into are uploaded, and the tail moving on just changes which part of the
+ * ring is drawn, so the upload each frame costs time in proportion to what changed rather than the
+ * length of the snake. The ring is drawn with one draw call, or two where it wraps around.
+ *
+ * @author Mike Lowe
+ */
+final class SnakeMesh implements Disposable {
+
+  static final int MAXIMUM_CELLS = 1 << 20;
+
+  private static final int FLOATS_PER_VERTEX = 4;
+  private static final int VERTICES_PER_CELL = 6;
+  private static final int FLOATS_PER_CELL = FLOATS_PER_VERTEX * VERTICES_PER_CELL;
+  private static final int BYTES_PER_FLOAT = 4;
+  // the most cells written in one upload, which limits the memory used to rebuild the ring
+  private static final int UPLOAD_CELLS = 1024;
+
+  private static final String VERTEX_SHADER = ""
+      + "attribute vec2 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+      + "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+      + "uniform mat4 u_projTrans;\n"
+      + "varying vec2 v_texCoords;\n"
+      + "void main() {\n"
+      + "  v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+      + "  gl_Position = u_projTrans * vec4(" + ShaderProgram.POSITION_ATTRIBUTE + ", 0.0, 1.0);\n"
+      + "}\n";
+  private static final String FRAGMENT_SHADER = ""
+      + "#ifdef GL_ES\n"
+      + "precision mediump float;\n"
+      + "#endif\n"
+      + "uniform sampler2D u_texture;\n"
+      + "uniform vec4 u_color;\n"
+      + "varying vec2 v_texCoords;\n"
+      + "void main() {\n"
+      + "  gl_FragColor = u_color * texture2D(u_texture, v_texCoords);\n"
+      + "}\n";
+
+  private final World world;
+  private final int capacity;
+  private ShaderProgram shader;
+  private int buffer;
+  private final FloatBuffer uploadBuffer =
+      BufferUtils.newFloatBuffer(UPLOAD_CELLS * FLOATS_PER_CELL);
+  private final float[] quad = new float[FLOATS_PER_CELL];
+  private GameState state;
+  private long ticks = -1;
+  private int headSlot;
+  private int length;
+  // the run of slots waiting in the upload buffer
+  private int uploadStartSlot;
+  private int uploadCellCount;
+  private int drawCalls;
+  private int uploads;
+  private long uploadedBytes;
+
+  /**
+   * Creates a new {@code SnakeMesh} instance.
+   *
+   * @param world the {@link World} to position cells in
+   * @param capacity the longest snake that can be drawn
+   */
+  SnakeMesh(World world, int capacity) {
+    this.world = world;
+    this.capacity = capacity;
+    this.shader = createShader();
+    this.buffer = createBuffer(capacity);
+  }
+
+  private static ShaderProgram createShader() {
+    ShaderProgram shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    if (!shader.isCompiled()) {
+      throw new GdxRuntimeException("Couldn't compile snake shader: " + shader.getLog());
+    }
+    return shader;
+  }
+
+  private static int createBuffer(int capacity) {
+    int buffer = Gdx.gl.glGenBuffer();
+    Gdx.gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, buffer);
+    Gdx.gl.glBufferData(GL20.GL_ARRAY_BUFFER, capacity * FLOATS_PER_CELL * BYTES_PER_FLOAT, null,
+        GL20.GL_DYNAMIC_DRAW);
+    Gdx.gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+    return buffer;
+  }
+
+  /**
+   * Creates the shader and vertex buffer again after the GL context has been lost, such as when an
+   * Android app is paused. The old buffer is abandoned rather than deleted, as its handle may
+   * already belong to a buffer created in the new context, which is also how libGDX restores its
+   * own buffers. The whole body is uploaded again by the next update.
+   */
+  void restore() {
+    // libGDX has already compiled the old shader again in the new context, so it can be disposed
+    shader.dispose();
+    shader = createShader();
+    buffer = createBuffer(capacity);
+    invalidate();
+  }
+
+  /**
+   * @return the longest snake that can be drawn
+   */
+  int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Makes the next {@link #update(GameState)} write every cell again, such as when the game has
+   * been reset or restored.
+   */
+  void invalidate() {
+    ticks = -1;
+  }
+
+  /**
+   * Uploads the cells that have changed since the last update.
+   *
+   * @param state the {@link GameState} to draw the body of
+   */
+  void update(GameState state) {
+    drawCalls = 0;
+    uploads = 0;
+    uploadedBytes = 0L;
+    Gdx.gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, buffer);
+    long moves = state.getTicks() - ticks;
+    int newLength = state.getLength();
+    if (state != this.state || ticks < 0 || moves < 0 || moves >= newLength) {
+      // write the whole body, with the head in the last slot used
+      for (int i = newLength - 1; i >= 0; i--) {
+        writeCell(newLength - 1 - i, state.getBodyPartCell(i));
+      }
+      headSlot = newLength - 1;
+    } else {
+      // write the new head positions, from oldest to newest
+      for (int i = (int) moves - 1; i >= 0; i--) {
+        headSlot = headSlot + 1 == capacity ? 0 : headSlot + 1;
+        writeCell(headSlot, state.getBodyPartCell(i));
+      }
+    }
+    flushUpload();
+    Gdx.gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+    this.state = state;
+    ticks = state.getTicks();
+    length = newLength;
+  }
+
+  private void writeCell(int slot, int cell) {
+    if (uploadCellCount == UPLOAD_CELLS || slot != uploadStartSlot + uploadCellCount) {
+      flushUpload();
+      uploadStartSlot = slot;
+    }
+    TextureRegion block = Assets.getBlock();
+    float x = world.getCellX(cell);
+    float y = world.getCellY(cell);
+    float x2 = x + world.getCellWidth();
+    float y2 = y + world.getCellHeight();
+    setVertex(0, x, y, block.getU(), block.getV2());
+    setVertex(1, x2, y, block.getU2(), block.getV2());
+    setVertex(2, x2, y2, block.getU2(), block.getV());
+    setVertex(3, x, y, block.getU(), block.getV2());
+    setVertex(4, x2, y2, block.getU2(), block.getV());
+    setVertex(5, x, y2, block.getU(), block.getV());
+    uploadBuffer.put(quad);
+    uploadCellCount++;
+  }
+
+  private void setVertex(int vertex, float x, float y, float u, float v) {
+    int offset = vertex * FLOATS_PER_VERTEX;
+    quad[offset] = x;
+    quad[offset + 1] = y;
+    quad[offset + 2] = u;
+    quad[offset + 3] = v;
+  }
+
+  private void flushUpload() {
+    if (uploadCellCount == 0) {
+      return;
+    }
+    int bytes = uploadCellCount * FLOATS_PER_CELL * BYTES_PER_FLOAT;
+    uploadBuffer.flip();
+    Gdx.gl.glBufferSubData(GL20.GL_ARRAY_BUFFER,
+        uploadStartSlot * FLOATS_PER_CELL * BYTES_PER_FLOAT, bytes, uploadBuffer);
+    uploadBuffer.clear();
+    uploadCellCount = 0;
+    uploads++;
+    uploadedBytes += bytes;
+  }
+
+  /**
+   * Draws the body as of the last update.
+   *
+   * @param projection the combined projection and transform to draw with
+   * @param color the {@link Color} to tint the body with
+   * @param skippedParts the number of body parts from the head not to draw
+   */
+  void render(Matrix4 projection, Color color, int skippedParts) {
+    int count = length - skippedParts;
+    if (count <= 0) {
+      return;
+    }
+    Gdx.gl.glEnable(GL20.GL_BLEND);
+    Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+    Assets.getBlock().getTexture().bind(0);
+    shader.begin();
+    shader.setUniformMatrix("u_projTrans", projection);
+    shader.setUniformi("u_texture", 0);
+    shader.setUniformf("u_color", color);
+    Gdx.gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, buffer);
+    int stride = FLOATS_PER_VERTEX * BYTES_PER_FLOAT;
+    shader.enableVertexAttribute(ShaderProgram.POSITION_ATTRIBUTE);
+    shader.setVertexAttribute(ShaderProgram.POSITION_ATTRIBUTE, 2, GL20.GL_FLOAT, false, stride, 0);
+    shader.enableVertexAttribute(ShaderProgram.TEXCOORD_ATTRIBUTE + "0");
+    shader.setVertexAttribute(ShaderProgram.TEXCOORD_ATTRIBUTE + "0", 2, GL20.GL_FLOAT, false,
+        stride, 2 * BYTES_PER_FLOAT);
+    // the tail is count - 1 slots behind the last part drawn, possibly wrapping round to the end of
+    // the ring
+    int lastSlot = headSlot - skippedParts;
+    if (lastSlot < 0) {
+      lastSlot += capacity;
+    }
+    int tailSlot = lastSlot - count + 1;
+    if (tailSlot >= 0) {
+      drawSlots(tailSlot, count);
+    } else {
+      drawSlots(tailSlot + capacity, -tailSlot);
+      drawSlots(0, lastSlot + 1);
+    }
+    shader.disableVertexAttribute(ShaderProgram.POSITION_ATTRIBUTE);
+    shader.disableVertexAttribute(ShaderProgram.TEXCOORD_ATTRIBUTE + "0");
+    Gdx.gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+    shader.end();
+  }
+
+  private void drawSlots(int firstSlot, int count) {
+    Gdx.gl.glDrawArrays(GL20.GL_TRIANGLES, firstSlot * VERTICES_PER_CELL,
+        count * VERTICES_PER_CELL);
+    drawCalls++;
+  }
+
+  /**
+   * @return the number of draw calls made since the last update
+   */
+  int getDrawCalls() {
+    return drawCalls;
+  }
+
+  /**
+   * @return the number of uploads made by the last update
+   */
+  int getUploads() {
+    return uploads;
+  }
+
+  /**
+   * @return the number of bytes uploaded by the last update
+   */
+  long getUploadedBytes() {
+    return uploadedBytes;
+  }
+
+  @Override
+  public void dispose() {
+    shader.dispose();
+    Gdx.gl.glDeleteBuffer(buffer);
+  }
+}
@@ -1,36 +1,85 @@
 package lowe.mike.snake.world;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.TimeUtils;
+import lowe.mike.snake.SnakeGame;
+import lowe.mike.snake.ai.AutopilotController;
+import lowe.mike.snake.ai.Controller;
+import lowe.mike.snake.ai.HamiltonianController;
+import lowe.mike.snake.net.GameClient;
+import lowe.mike.snake.net.RemoteGameState;
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.GameState;
+import lowe.mike.snake.simulation.Replay;
+import lowe.mike.snake.simulation.ReplayPlayer;
+import lowe.mike.snake.simulation.ReplayRecorder;
+import lowe.mike.snake.simulation.RewindBuffer;
+import lowe.mike.snake.simulation.Simulation;
+import lowe.mike.snake.simulation.Snapshot;
+import lowe.mike.snake.simulation.TickScheduler;
+import lowe.mike.snake.simulation.TurnQueue;
+import lowe.mike.snake.util.LatencyHistogram;
 import lowe.mike.snake.util.State;
 
 /**
  * {@code World} represents the world in the game containing the snake, food, etc.
+ * <p>
+ * The rules of the game are handled by a {@link Simulation}; {@code World} decides when it should
+ * tick and keeps the {@link Actor}s on the {@link Stage} in sync with it. Every game is recorded as
+ * a {@link Replay}, and a {@link Replay} can be played back in place of the player's input. The
+ * last few seconds of a game are kept in a {@link RewindBuffer} so that they can be rewound.
+ * <p>
+ * The time from each turn being asked for to the tick that makes it, and to the first frame drawn
+ * after that tick, is recorded in a {@link LatencyHistogram}.
+ * <p>
+ * A {@code World} can instead be connected to a server with a {@link GameClient}, in which case
+ * the server ticks the game and the {@link Actor}s follow the {@link RemoteGameState} it sends.
  *
  * @author Mike Lowe
  */
 public final class World {
 
-  static final Rectangle BOUNDS = new Rectangle(20f, 240f, 320f, 320f);
-  static final int GRID_CELL_WIDTH = 16;
-  static final int GRID_CELL_HEIGHT = 16;
+  public static final float MAXIMUM_REWIND_SECONDS = 10f;
 
-  private static final int ROWS = 20;
-  private static final int COLUMNS = 20;
-  private static final float TICK_INTERVAL_INCREMENT = .075f;
-  private static final int BONUS_FOOD_APPEARANCE_INTERVAL = 5;
-  private static final int BONUS_FOOD_TICKS = 20;
+  private static final Rectangle BOUNDS = new Rectangle(20f, 240f, 320f, 320f);
+  private static final long MAXIMUM_EVENT_AGE = 1000000000L;
+  private static final float HALF_WAY = .5f;
 
   private final Stage stage;
+  private Simulation simulation;
+  // what is drawn, which is either the simulation or the remote state
+  private GameState state;
+  private GameClient client;
+  private RemoteGameState remoteState;
+  private ReplayRecorder replayRecorder;
+  private ReplayPlayer replayPlayer;
+  // enough ticks for the maximum rewind at the fastest level
+  private final RewindBuffer rewindBuffer = new RewindBuffer(
+      (int) Math.ceil(MAXIMUM_REWIND_SECONDS / Level.getTickInterval(Level.MAXIMUM)));
+  private float cellWidth;
+  private float cellHeight;
   private final Snake snake;
   private final Food food;
   private final BonusFood bonusFood;
-  private float tick;
-  private int eaten;
-  private int nextBonusFoodAppearance = BONUS_FOOD_APPEARANCE_INTERVAL;
-  private int bonusFoodTicksRemaining;
+  private final TickScheduler tickScheduler =
+      new TickScheduler(Level.getTickInterval(State.getLevel()));
+  private Direction currentDirection = Direction.RIGHT;
+  // turns the player has asked for, made one per tick
+  private final TurnQueue turns = new TurnQueue();
+  private final LatencyHistogram tickLatencies = new LatencyHistogram("TICK");
+  private final LatencyHistogram frameLatencies = new LatencyHistogram("FRAME");
+  // when each turn made since the last frame was drawn was asked for
+  private final LongArray undrawnTurnTimestamps = new LongArray();
+  private Controller autopilot;
+  private boolean isInterpolating;
+  // the tick the snake last moved to, and where its tail was before
+  private long interpolatedTick = -1L;
+  private int previousTailCell;
 
   /**
    * Creates a new {@code World} instance.
@@ -39,90 +88,483 @@ public final class World {
    */
   public World(Stage stage) {
     this.stage = stage;
-    this.snake = new Snake();
+    createSimulation();
+    this.snake = new Snake(this);
     this.food = new Food();
     this.bonusFood = new BonusFood();
     this.stage.addActor(this.snake);
     this.stage.addActor(this.food);
-    setRandomPosition(food);
+    updateActors();
   }
 
-  private void setRandomPosition(Food food) {
-    float x;
-    float y;
-    do {
-      x = (MathUtils.random(COLUMNS - 1) * GRID_CELL_WIDTH) + BOUNDS.x;
-      y = (MathUtils.random(ROWS - 1) * GRID_CELL_HEIGHT) + BOUNDS.y;
-    } while (isPositionOccupied(x, y));
-    food.setPosition(x, y);
+  private void createSimulation() {
+    int boardSize = State.getBoardSize();
+    setSimulation(
+        new Simulation(boardSize, boardSize, State.getLevel(), MathUtils.random.nextLong()));
+    replayPlayer = null;
+    replayRecorder = new ReplayRecorder(simulation);
+    rewindBuffer.clear();
   }
 
-  private boolean isPositionOccupied(float x, float y) {
-    return snake.isBodyPartOccupyingPosition(x, y) || snake.isHeadOccupyingPosition(x, y) ||
-        isFoodOccupyingPosition(x, y) || isBonusFoodOccupyingPosition(x, y);
+  private void setSimulation(Simulation simulation) {
+    this.simulation = simulation;
+    setState(simulation);
   }
 
-  private boolean isFoodOccupyingPosition(float x, float y) {
-    return food.getX() == x && food.getY() == y;
+  private void setState(GameState state) {
+    this.state = state;
+    cellWidth = BOUNDS.width / state.getColumns();
+    cellHeight = BOUNDS.height / state.getRows();
   }
 
-  private boolean isBonusFoodOccupyingPosition(float x, float y) {
-    return isBonusFoodShowing() && bonusFood.getX() == x && bonusFood.getY() == y;
+  /**
+   * @return the area the board is drawn in
+   */
+  Rectangle getBounds() {
+    return BOUNDS;
+  }
+
+  /**
+   * @param cell the cell
+   * @return the x position of the cell
+   */
+  float getCellX(int cell) {
+    return BOUNDS.x + state.getColumn(cell) * cellWidth;
+  }
+
+  /**
+   * @param cell the cell
+   * @return the y position of the cell
+   */
+  float getCellY(int cell) {
+    return BOUNDS.y + state.getRow(cell) * cellHeight;
+  }
+
+  /**
+   * @return the width of a cell
+   */
+  float getCellWidth() {
+    return cellWidth;
+  }
+
+  /**
+   * @return the height of a cell
+   */
+  float getCellHeight() {
+    return cellHeight;
+  }
+
+  /**
+   * @return the seed the current game was started from, which with the same inputs reproduces the
+   * game
+   */
+  public long getSeed() {
+    return simulation.getSeed();
   }
 
   /**
    * @return if the {@link BonusFood} is showing
    */
   public boolean isBonusFoodShowing() {
-    return bonusFood.getStage() != null;
+    return state.isBonusFoodShowing();
   }
 
   /**
    * Resets this {@code World} to its initial state.
    */
   public void reset() {
+    if (isOnline()) {
+      // the server starts the new game, and the actors catch up once it has
+      client.sendRestart();
+      remoteState.restart();
+      snake.reset();
+      return;
+    }
+    // the board size may have been changed in the settings since the last game
+    if (isPlayingReplay() || simulation.getColumns() != State.getBoardSize() ||
+        simulation.getRows() != State.getBoardSize()) {
+      createSimulation();
+    } else {
+      simulation.setLevel(State.getLevel());
+      simulation.reset(MathUtils.random.nextLong());
+      replayRecorder = new ReplayRecorder(simulation);
+      rewindBuffer.clear();
+    }
+    resetActors();
+  }
+
+  /**
+   * Starts playing back the given {@link Replay} from the beginning. Input from the player is
+   * ignored until this {@code World} is {@link #reset()}.
+   *
+   * @param replay the {@link Replay} to play
+   */
+  public void playReplay(Replay replay) {
+    replayPlayer = new ReplayPlayer(replay);
+    replayRecorder = null;
+    setSimulation(replayPlayer.getSimulation());
+    resetActors();
+  }
+
+  /**
+   * Takes a {@link Snapshot} of the current game, reusing an existing {@link Snapshot}.
+   *
+   * @param snapshot the {@link Snapshot} to overwrite, or {@code null} to create a new one
+   * @return the {@link Snapshot}
+   */
+  public Snapshot snapshot(Snapshot snapshot) {
+    return simulation.snapshot(snapshot == null ? new Snapshot() : snapshot);
+  }
+
+  /**
+   * @return a {@link Snapshot} of the current game
+   */
+  public Snapshot snapshot() {
+    return snapshot(null);
+  }
+
+  /**
+   * Restores the current game to an earlier {@link Snapshot} of it. The game's {@link Replay} is
+   * rewound to match, so it still reproduces the game as it is played from here on.
+   *
+   * @param snapshot a {@link Snapshot} taken earlier in the current game
+   */
+  public void restore(Snapshot snapshot) {
+    if (isOnline() || isPlayingReplay()) {
+      throw new IllegalStateException("Only games being played locally can be restored");
+    }
+    if (snapshot.getSeed() != simulation.getSeed() || snapshot.getTicks() > simulation.getTicks()) {
+      throw new IllegalArgumentException("Snapshot wasn't taken earlier in the current game");
+    }
+    simulation.restore(snapshot);
+    // the inputs recorded after the snapshot no longer lead to it
+    rewindBuffer.clear();
+    onRewind();
+  }
+
+  /**
+   * @return if the current game can be rewound, which is only possible for games being played
+   * locally that have been played for at least a tick
+   */
+  public boolean canRewind() {
+    return !isOnline() && !isPlayingReplay() &&
+        rewindBuffer.getEarliestTick() < simulation.getTicks();
+  }
+
+  /**
+   * Rewinds the current game by the given number of seconds, or as far as it can be rewound, up to
+   * {@link #MAXIMUM_REWIND_SECONDS}. The game's {@link Replay} is rewound to match.
+   *
+   * @param seconds the number of seconds to rewind by, at the current game's speed
+   * @return the number of seconds rewound, at the current game's speed
+   */
+  public float rewind(float seconds) {
+    if (!canRewind()) {
+      return 0f;
+    }
+    float tickInterval = Level.getTickInterval(simulation.getLevel());
+    int ticks = MathUtils.ceil(seconds / tickInterval);
+    long tick = Math.max(simulation.getTicks() - ticks, rewindBuffer.getEarliestTick());
+    float rewoundSeconds = (simulation.getTicks() - tick) * tickInterval;
+    rewindBuffer.seek(simulation, tick);
+    onRewind();
+    return rewoundSeconds;
+  }
+
+  private void onRewind() {
+    replayRecorder.rewind();
+    if (autopilot != null) {
+      autopilot.reset(simulation);
+    }
+    snake.reset();
+    currentDirection = simulation.getLastDirection();
+    turns.clear();
+    tickScheduler.reset();
+    interpolatedTick = -1L;
+    State.setCurrentScore(simulation.getScore());
+    updateActors();
+  }
+
+  /**
+   * Connects this {@code World} to a server, which plays the game from now on. The player's input
+   * is sent to the server rather than being simulated locally.
+   *
+   * @param client the {@link GameClient} connecting to the server. If it can't connect, the game
+   * is played locally instead
+   */
+  public void connect(GameClient client) {
+    this.client = client;
+    remoteState = new RemoteGameState();
+    replayPlayer = null;
+    replayRecorder = null;
+    autopilot = null;
+    snake.reset();
+  }
+
+  /**
+   * @return if this {@code World} is connected to a server
+   */
+  public boolean isOnline() {
+    return client != null;
+  }
+
+  /**
+   * @return if a {@link Replay} is being played back
+   */
+  public boolean isPlayingReplay() {
+    return replayPlayer != null;
+  }
+
+  /**
+   * @return the {@link Replay} being played back, or otherwise a {@link Replay} of the current
+   * game so far
+   */
+  public Replay getReplay() {
+    return isPlayingReplay() ? replayPlayer.getReplay() : replayRecorder.toReplay();
+  }
+
+  private void resetActors() {
+    if (autopilot != null) {
+      autopilot.reset(simulation);
+    }
     snake.reset();
-    setRandomPosition(food);
-    bonusFood.remove();
-    tick = 0f;
-    eaten = 0;
-    nextBonusFoodAppearance = BONUS_FOOD_APPEARANCE_INTERVAL;
-    bonusFoodTicksRemaining = 0;
+    currentDirection = Direction.RIGHT;
+    turns.clear();
+    tickScheduler.reset();
+    interpolatedTick = -1L;
+    updateActors();
   }
 
   /**
    * @return the number of bonus ticks remaining
    */
   public int getBonusFoodTicksRemaining() {
-    return bonusFoodTicksRemaining;
+    return state.getBonusFoodTicksRemaining();
+  }
+
+  /**
+   * Hands steering of the {@link Snake} over to the given {@link Controller}, such as an {@link
+   * AutopilotController} or a {@link HamiltonianController}, alongside the player.
+   *
+   * @param autopilot the {@link Controller}, or {@code null} to turn the autopilot off
+   */
+  public void setAutopilot(Controller autopilot) {
+    this.autopilot = autopilot;
+    if (autopilot != null) {
+      autopilot.reset(simulation);
+    }
+  }
+
+  /**
+   * @return if the autopilot is on
+   */
+  public boolean isAutopilotOn() {
+    return autopilot != null;
   }
 
   /**
    * Set the {@link Snake}'s direction to go up, if possible.
    */
   public void setSnakeDirectionUp() {
-    snake.setCurrentDirection(Snake.Direction.UP);
+    setSnakeDirection(Direction.UP);
   }
 
   /**
    * Set the {@link Snake}'s direction to go right, if possible.
    */
   public void setSnakeDirectionRight() {
-    snake.setCurrentDirection(Snake.Direction.RIGHT);
+    setSnakeDirection(Direction.RIGHT);
   }
 
   /**
    * Set the {@link Snake}'s direction to go down, if possible.
    */
   public void setSnakeDirectionDown() {
-    snake.setCurrentDirection(Snake.Direction.DOWN);
+    setSnakeDirection(Direction.DOWN);
   }
 
   /**
    * Set the {@link Snake}'s direction to go left, if possible.
    */
   public void setSnakeDirectionLeft() {
-    snake.setCurrentDirection(Snake.Direction.LEFT);
+    setSnakeDirection(Direction.LEFT);
+  }
+
+  private void setSnakeDirection(Direction direction) {
+    if (isOnline()) {
+      // the server queues the turns, as it knows which way the snake is going
+      client.sendDirection(direction);
+    } else {
+      turns.offer(direction, simulation.getLastDirection(), getInputTime());
+    }
+  }
+
+  private static long getInputTime() {
+    // when the event happened rather than when it was handled, if the backend knows, as the event
+    // may have waited for the next frame
+    long now = TimeUtils.nanoTime();
+    long eventTime = Gdx.input == null ? 0L : Gdx.input.getCurrentEventTime();
+    boolean isEventTimeKnown = eventTime > 0L && eventTime <= now;
+    return isEventTimeKnown && now - eventTime < MAXIMUM_EVENT_AGE ? eventTime : now;
+  }
+
+  /**
+   * @param isMeshRendering if the {@link Snake} should be drawn from a vertex buffer kept on the
+   * GPU, which suits very long snakes, rather than being batched with everything else
+   */
+  public void setMeshRendering(boolean isMeshRendering) {
+    snake.setMeshRendering(isMeshRendering);
+  }
+
+  /**
+   * @return if the {@link Snake} is drawn from a vertex buffer kept on the GPU
+   */
+  public boolean isMeshRendering() {
+    return snake.isMeshRendering();
+  }
+
+  /**
+   * @param isInterpolating if the {@link Snake} should be drawn moving smoothly between the last
+   * two ticks, which draws every frame, rather than jumping from cell to cell each tick
+   */
+  public void setInterpolating(boolean isInterpolating) {
+    this.isInterpolating = isInterpolating;
+  }
+
+  /**
+   * @return if the {@link Snake} is drawn moving smoothly between the last two ticks
+   */
+  public boolean isInterpolating() {
+    return isInterpolating;
+  }
+
+  /**
+   * Works out how far the {@link Snake} should be drawn between the last two ticks. Drawing between
+   * them rather than ahead of the last one means the moves shown are always ones that were made,
+   * at the cost of showing each one up to a tick late.
+   *
+   * @return how far through the move to the current tick to draw the {@link Snake}, from {@code 0}
+   * inclusive, or {@code 1} if it should be drawn as it is now
+   */
+  float getInterpolation() {
+    if (!isInterpolating || isOnline() || state.isSnakeDead() ||
+        interpolatedTick != state.getTicks()) {
+      return 1f;
+    }
+    return tickScheduler.getProgress();
+  }
+
+  /**
+   * @return the cell the tail was in before the move to the current tick, which is the same as the
+   * tail now if the snake grew
+   */
+  int getPreviousTailCell() {
+    return previousTailCell;
+  }
+
+  /**
+   * @return the number of draw calls made drawing the {@link Snake} from a vertex buffer in the
+   * last frame
+   */
+  public int getMeshDrawCalls() {
+    return snake.getMesh() == null ? 0 : snake.getMesh().getDrawCalls();
+  }
+
+  /**
+   * @return the number of uploads to the {@link Snake}'s vertex buffer in the last frame
+   */
+  public int getMeshUploads() {
+    return snake.getMesh() == null ? 0 : snake.getMesh().getUploads();
+  }
+
+  /**
+   * @return the number of bytes uploaded to the {@link Snake}'s vertex buffer in the last frame
+   */
+  public long getMeshUploadedBytes() {
+    return snake.getMesh() == null ? 0L : snake.getMesh().getUploadedBytes();
+  }
+
+  /**
+   * Lets this {@code World} know the size of the screen has changed, so graphics drawn at the old
+   * resolution are drawn again.
+   */
+  public void resize() {
+    snake.resize();
+  }
+
+  /**
+   * Lets this {@code World} know the game has resumed after being paused, during which the GL
+   * context may have been lost along with everything drawn offscreen.
+   */
+  public void resume() {
+    snake.resetLayer();
+    snake.restoreMesh();
+  }
+
+  /**
+   * Releases the graphics resources held by this {@code World}, and closes the connection to the
+   * server if there is one.
+   */
+  public void dispose() {
+    snake.dispose();
+    if (isOnline()) {
+      // otherwise the server would carry on playing the game
+      client.close();
+    }
+  }
+
+  /**
+   * @return the time from each turn being asked for to the tick that made it
+   */
+  public LatencyHistogram getTickLatencies() {
+    return tickLatencies;
+  }
+
+  /**
+   * @return the time from each turn being asked for to the first frame drawn after the tick that
+   * made it, or while interpolating, the first frame drawing the head at least half way into the
+   * cell it turned into
+   */
+  public LatencyHistogram getFrameLatencies() {
+    return frameLatencies;
+  }
+
+  /**
+   * Lets this {@code World} know that a frame showing its current state has been drawn.
+   */
+  public void frameDrawn() {
+    // while interpolating, frames just after a tick still draw the head nearer its previous cell
+    if (undrawnTurnTimestamps.size == 0 || getInterpolation() < HALF_WAY) {
+      return;
+    }
+    long now = TimeUtils.nanoTime();
+    for (int i = 0; i < undrawnTurnTimestamps.size; i++) {
+      frameLatencies.record(now - undrawnTurnTimestamps.get(i));
+    }
+    undrawnTurnTimestamps.clear();
+  }
+
+  /**
+   * @return time in seconds until something this {@code World} shows next changes, {@code 0} if
+   * it is changing every frame
+   */
+  public float getTimeUntilNextChange() {
+    if (isOnline() || state.isSnakeDead() || getInterpolation() < 1f) {
+      // waiting on the server, the snake is flashing as it dies, or the snake is moving smoothly
+      return 0f;
+    }
+    float time = tickScheduler.getTimeUntilNextTick();
+    if (isBonusFoodShowing()) {
+      time = Math.min(time, bonusFood.getTimeUntilNextFlash());
+    }
+    return time;
+  }
+
+  private void playLocally() {
+    client = null;
+    remoteState = null;
+    createSimulation();
+    resetActors();
   }
 
   /**
@@ -131,21 +573,36 @@ public final class World {
    * @param delta time in seconds since the last frame
    */
   public void update(float delta) {
-    float tickInterval = (Level.MAXIMUM + 1 - State.getLevel()) * TICK_INTERVAL_INCREMENT;
-    if (tick >= tickInterval) {
-      tick -= tickInterval;
-      snake.updatePositionAndState();
-      checkSnakeAteFood();
-      checkSnakeAteBonusFood();
-      updateBonusFoodAppearance();
+    if (isOnline()) {
+      receive();
+      if (!remoteState.isStarted()) {
+        // still waiting for the server to start the game
+        if (client.getConnectError() != null) {
+          Gdx.app.error(SnakeGame.TITLE, "Couldn't connect to the server",
+              client.getConnectError());
+          playLocally();
+        } else if (client.isClosed()) {
+          State.setGameOver(true);
+        }
+        return;
+      }
     } else {
-      tick += delta;
+      tick(delta);
     }
 
-    if (snake.isDying()) {
-      snake.updateDeathSequence(delta);
+    if (state.isBoardComplete()) {
+      State.setBoardComplete(true);
+      State.setGameOver(true);
     } else if (snake.isDead()) {
       State.setGameOver(true);
+    } else if (isPlayingReplay() && replayPlayer.isFinished() && !state.isSnakeDead()) {
+      // the recording was stopped before the game ended
+      State.setGameOver(true);
+    } else if (isOnline() && client.isClosed() && !state.isSnakeDead()) {
+      // lost the connection to the server
+      State.setGameOver(true);
+    } else if (state.isSnakeDead()) {
+      snake.updateDeathSequence(delta);
     }
 
     if (isBonusFoodShowing()) {
@@ -153,41 +610,89 @@ public final class World {
     }
   }
 
-  private void checkSnakeAteFood() {
-    if (isFoodOccupyingPosition(snake.getHead().getX(), snake.getHead().getY())) {
-      setRandomPosition(food);
-      State.setCurrentScore(State.getCurrentScore() + State.getLevel());
-      snake.addBodyPart();
-      eaten++;
+  private void receive() {
+    boolean wasStarted = remoteState.isStarted();
+    if (client.poll(remoteState) && remoteState.isStarted()) {
+      if (!wasStarted) {
+        setState(remoteState);
+      }
+      State.setCurrentScore(state.getScore());
+      updateActors();
     }
   }
 
-  private void checkSnakeAteBonusFood() {
-    if (isBonusFoodOccupyingPosition(snake.getHead().getX(), snake.getHead().getY())) {
-      State.setCurrentScore(State.getCurrentScore() + bonusFoodTicksRemaining);
-      snake.addBodyPart();
-      removeBonusFood();
+  private void tick(float delta) {
+    int level;
+    if (isPlayingReplay()) {
+      level = replayPlayer.getLevel();
+    } else {
+      level = State.getLevel();
+      replayRecorder.setLevel(level);
+    }
+    tickScheduler.setTickInterval(Level.getTickInterval(level));
+    int ticks = tickScheduler.update(delta);
+    if (ticks > 0) {
+      for (int i = 0; i < ticks; i++) {
+        if (simulation.isSnakeDead() || simulation.isBoardComplete()) {
+          // the game is over, and recording inputs that go nowhere would lose what can be rewound
+          break;
+        }
+        long tick = simulation.getTicks();
+        int tailCell = simulation.getBodyPartCell(simulation.getLength() - 1);
+        step();
+        if (simulation.getTicks() != tick) {
+          interpolatedTick = simulation.getTicks();
+          previousTailCell = tailCell;
+        }
+      }
+      State.setCurrentScore(simulation.getScore());
+      updateActors();
     }
   }
 
-  private void removeBonusFood() {
-    bonusFood.remove();
-    nextBonusFoodAppearance += BONUS_FOOD_APPEARANCE_INTERVAL;
+  private void step() {
+    if (isPlayingReplay()) {
+      replayPlayer.step();
+    } else {
+      Direction turn = turns.poll();
+      if (turn != null) {
+        currentDirection = turn;
+        long timestamp = turns.getPolledTimestamp();
+        tickLatencies.record(TimeUtils.nanoTime() - timestamp);
+        undrawnTurnTimestamps.add(timestamp);
+      }
+      if (autopilot != null) {
+        Direction direction = autopilot.getDirection(simulation);
+        if (simulation.canTurn(direction)) {
+          currentDirection = direction;
+        }
+      }
+      rewindBuffer.record(simulation, currentDirection);
+      replayRecorder.step(currentDirection);
+    }
   }
 
-  private void updateBonusFoodAppearance() {
-    if (isBonusFoodShowing() && bonusFoodTicksRemaining <= 0) {
-      removeBonusFood();
-    } else if (isBonusFoodShowing()) {
-      bonusFoodTicksRemaining--;
-    } else if (!isBonusFoodShowing() && eaten == nextBonusFoodAppearance) {
-      addBonusFood();
+  private void updateActors() {
+    snake.setState(state);
+    if (state.getFoodCell() != Simulation.NO_CELL) {
+      setCellPosition(food, state.getFoodCell());
+      if (food.getStage() == null) {
+        stage.addActor(food);
+      }
+    } else {
+      food.remove();
+    }
+    if (state.isBonusFoodShowing()) {
+      setCellPosition(bonusFood, state.getBonusFoodCell());
+      if (bonusFood.getStage() == null) {
+        stage.addActor(bonusFood);
+      }
+    } else {
+      bonusFood.remove();
     }
   }
 
-  private void addBonusFood() {
-    stage.addActor(bonusFood);
-    bonusFoodTicksRemaining = BONUS_FOOD_TICKS;
-    setRandomPosition(bonusFood);
+  private void setCellPosition(Actor actor, int cell) {
+    actor.setBounds(getCellX(cell), getCellY(cell), cellWidth, cellHeight);
   }
 }
@@ -0,0 +1,55 @@
+package lowe.mike.snake.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Checks {@link CellMap} against a {@link HashMap} given the same random puts and removes.
+ *
+ * @author Mike Lowe
+ */
+public final class CellMapTest {
+
+  private static final int CELL_COUNT = 200;
+  private static final int OPERATIONS = 100000;
+
+  @Test
+  public void matchesHashMap() {
+    // a small expected size makes the map grow, and few cells make probe runs collide
+    CellMap cellMap = new CellMap(1);
+    Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+    Random random = new Random(1L);
+    for (int i = 0; i < OPERATIONS; i++) {
+      int cell = random.nextInt(CELL_COUNT);
+      if (random.nextBoolean()) {
+        cellMap.put(cell, i);
+        expected.put(cell, i);
+      } else {
+        Integer value = expected.remove(cell);
+        assertEquals(value == null ? CellMap.NO_VALUE : value, cellMap.remove(cell));
+      }
+      assertEquals(expected.size(), cellMap.size());
+    }
+    for (int cell = 0; cell < CELL_COUNT; cell++) {
+      Integer value = expected.get(cell);
+      assertEquals(value == null ? CellMap.NO_VALUE : value, cellMap.get(cell));
+    }
+  }
+
+  @Test
+  public void clearRemovesEverything() {
+    CellMap cellMap = new CellMap(4);
+    for (int cell = 0; cell < 100; cell++) {
+      cellMap.put(cell, cell);
+    }
+    cellMap.clear();
+    assertEquals(0, cellMap.size());
+    for (int cell = 0; cell < 100; cell++) {
+      assertEquals(CellMap.NO_VALUE, cellMap.get(cell));
+    }
+  }
+}
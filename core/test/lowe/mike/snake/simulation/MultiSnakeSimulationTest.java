@@ -0,0 +1,133 @@
+package lowe.mike.snake.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks how {@link MultiSnakeSimulation} resolves collisions between snakes, with the snakes laid
+ * out by hand on a board with no other snakes on it.
+ *
+ * @author Mike Lowe
+ */
+public final class MultiSnakeSimulationTest {
+
+  private static final int COLUMNS = 10;
+  private static final int ROWS = 10;
+  private static final int SNAKE_COUNT = 3;
+  private static final int FOOD_COUNT = 1;
+
+  private MultiSnakeSimulation simulation;
+
+  @Before
+  public void setUp() {
+    simulation = new MultiSnakeSimulation(COLUMNS, ROWS, SNAKE_COUNT, FOOD_COUNT, 1L);
+    for (int snake = 0; snake < SNAKE_COUNT; snake++) {
+      simulation.killSnake(snake);
+    }
+  }
+
+  private static int cell(int column, int row) {
+    return row * COLUMNS + column;
+  }
+
+  @Test
+  public void headsMovingIntoTheSameCellKillEachOther() {
+    simulation.placeSnake(0, Direction.RIGHT, cell(3, 5), cell(2, 5), cell(1, 5));
+    simulation.placeSnake(1, Direction.LEFT, cell(5, 5), cell(6, 5), cell(7, 5));
+
+    simulation.step();
+
+    assertTrue(simulation.isSnakeDead(0));
+    assertTrue(simulation.isSnakeDead(1));
+    assertEquals(0, simulation.getAliveCount());
+    assertFalse(simulation.getBoard().isSnakeOccupying(cell(4, 5)));
+    assertFalse(simulation.getBoard().isSnakeOccupying(cell(3, 5)));
+    assertFalse(simulation.getBoard().isSnakeOccupying(cell(5, 5)));
+  }
+
+  @Test
+  public void headsSwappingCellsKillEachOther() {
+    simulation.placeSnake(0, Direction.RIGHT, cell(3, 5), cell(2, 5));
+    simulation.placeSnake(1, Direction.LEFT, cell(4, 5), cell(5, 5));
+
+    simulation.step();
+
+    assertTrue(simulation.isSnakeDead(0));
+    assertTrue(simulation.isSnakeDead(1));
+  }
+
+  @Test
+  public void headMovingIntoAnotherBodyKillsOnlyThatSnake() {
+    simulation.placeSnake(0, Direction.RIGHT, cell(3, 5), cell(2, 5), cell(1, 5));
+    simulation.placeSnake(1, Direction.DOWN, cell(4, 4), cell(4, 5), cell(4, 6));
+
+    simulation.step();
+
+    assertTrue(simulation.isSnakeDead(0));
+    assertFalse(simulation.isSnakeDead(1));
+    assertEquals(1, simulation.getAliveCount());
+    assertEquals(1, simulation.getAliveSnake(0));
+    assertEquals(cell(4, 3), simulation.getHeadCell(1));
+    assertFalse(simulation.getBoard().isSnakeOccupying(cell(2, 5)));
+  }
+
+  @Test
+  public void headMovingIntoCellTailIsLeavingKillsTheSnake() {
+    // the same as a single snake, tails only move once every head has been checked
+    simulation.placeSnake(0, Direction.RIGHT, cell(3, 5), cell(2, 5), cell(1, 5));
+    simulation.placeSnake(1, Direction.DOWN, cell(4, 3), cell(4, 4), cell(4, 5));
+
+    simulation.step();
+
+    assertTrue(simulation.isSnakeDead(0));
+    assertFalse(simulation.isSnakeDead(1));
+    assertEquals(cell(4, 2), simulation.getHeadCell(1));
+    assertEquals(cell(4, 4), simulation.getTailCell(1));
+  }
+
+  @Test
+  public void headMovingIntoOwnTailKillsTheSnake() {
+    simulation.placeSnake(0, Direction.LEFT, cell(1, 1), cell(2, 1), cell(2, 2), cell(1, 2));
+
+    simulation.setDirection(0, Direction.UP);
+    simulation.step();
+
+    assertTrue(simulation.isSnakeDead(0));
+  }
+
+  @Test
+  public void snakesMissingEachOtherKeepMoving() {
+    simulation.placeSnake(0, Direction.RIGHT, cell(3, 5), cell(2, 5));
+    simulation.placeSnake(1, Direction.LEFT, cell(5, 6), cell(6, 6));
+    simulation.placeSnake(2, Direction.UP, cell(8, 1), cell(8, 0));
+
+    simulation.step();
+
+    assertEquals(SNAKE_COUNT, simulation.getAliveCount());
+    assertEquals(cell(4, 5), simulation.getHeadCell(0));
+    assertEquals(cell(4, 6), simulation.getHeadCell(1));
+    assertEquals(cell(8, 2), simulation.getHeadCell(2));
+  }
+
+  @Test
+  public void deadSnakesAreLeftOutOfLaterTicks() {
+    simulation.placeSnake(0, Direction.RIGHT, cell(3, 5), cell(2, 5));
+    simulation.placeSnake(1, Direction.LEFT, cell(5, 5), cell(6, 5));
+    simulation.placeSnake(2, Direction.UP, cell(8, 1), cell(8, 0));
+
+    simulation.step();
+    simulation.step();
+
+    assertEquals(1, simulation.getAliveCount());
+    assertEquals(2, simulation.getAliveSnake(0));
+    assertEquals(cell(8, 3), simulation.getHeadCell(2));
+
+    assertTrue(simulation.spawnSnake(0));
+    assertEquals(2, simulation.getAliveCount());
+    assertFalse(simulation.isSnakeDead(0));
+  }
+}
@@ -20,7 +20,12 @@ public final class Snake {
   };
 
   public static void main(String[] arg) {
-    SnakeGame game = new SnakeGame();
+    // --connect host:port plays on a server rather than locally
+    String serverAddress = null;
+    if (arg.length == 2 && "--connect".equals(arg[0])) {
+      serverAddress = arg[1];
+    }
+    SnakeGame game = new SnakeGame(serverAddress);
     LwjglApplicationConfiguration config = initialiseConfig();
     new LwjglApplication(game, config);
   }
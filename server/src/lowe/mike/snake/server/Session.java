@@ -0,0 +1,203 @@
+package lowe.mike.snake.server;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Random;
+import lowe.mike.snake.net.DeltaEncoder;
+import lowe.mike.snake.net.Protocol;
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.Simulation;
+import lowe.mike.snake.simulation.TurnQueue;
+
+/**
+ * A game being played by one connected client. The server ticks the game, and the client only
+ * decides which way the snake turns.
+ * <p>
+ * What changes each tick is queued for the client's own writer thread rather than written while
+ * ticking, so a client that is slow to read can't hold up the ticks of any other game. Each tick
+ * only sends what changed since the last, so nothing can be dropped, and a client that falls more
+ * than {@link #MAXIMUM_LAG} nanoseconds behind is disconnected instead.
+ *
+ * @author Mike Lowe
+ */
+final class Session {
+
+  private static final long MAXIMUM_LAG = 2000000000L;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final int BUFFER_SIZE = 1024;
+
+  private final Socket socket;
+  private final OutputStream output;
+  private final Simulation simulation;
+  private final DeltaEncoder encoder = new DeltaEncoder();
+  private final Random seeds = new Random();
+  private final TurnQueue turns = new TurnQueue();
+  private Direction direction = Direction.RIGHT;
+  private boolean isRestartRequested = true;
+  private volatile boolean isClosed;
+  private final Object outputLock = new Object();
+  // bytes queued for the writer thread, and when the oldest of them was queued
+  private byte[] pending = new byte[BUFFER_SIZE];
+  private int pendingLength;
+  private long pendingSince;
+  // bytes being written by the writer thread
+  private byte[] writing = new byte[BUFFER_SIZE];
+
+  /**
+   * Creates a new {@code Session} instance for a connected client.
+   *
+   * @param socket the client's {@link Socket}
+   * @param size the number of cells along each side of the board
+   * @param level the level the game is played in
+   * @throws IOException if the client's streams can't be opened
+   */
+  Session(Socket socket, int size, int level) throws IOException {
+    this.socket = socket;
+    this.socket.setTcpNoDelay(true);
+    this.output = new BufferedOutputStream(socket.getOutputStream());
+    this.simulation = new Simulation(size, size, level, seeds.nextLong());
+  }
+
+  /**
+   * Writes what has been queued for the client until it disconnects. This blocks, so is run on its
+   * own thread.
+   */
+  void writeOutput() {
+    try {
+      while (true) {
+        int length;
+        synchronized (outputLock) {
+          while (pendingLength == 0 && !isClosed) {
+            outputLock.wait();
+          }
+          if (isClosed) {
+            return;
+          }
+          byte[] queued = pending;
+          pending = writing;
+          writing = queued;
+          length = pendingLength;
+          pendingLength = 0;
+        }
+        output.write(writing, 0, length);
+        output.flush();
+      }
+    } catch (IOException e) {
+      // treated the same as the client disconnecting
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Reads input from the client until it disconnects. This blocks, so is run on its own thread.
+   */
+  void readInput() {
+    try {
+      InputStream input = socket.getInputStream();
+      int b;
+      while ((b = input.read()) != -1) {
+        handleInput(b);
+      }
+    } catch (IOException e) {
+      // treated the same as the client disconnecting
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Handles a byte of input from the client, which takes effect on the next tick.
+   *
+   * @param input the ordinal of a {@link Direction} to turn to, or {@link Protocol#RESTART}
+   */
+  synchronized void handleInput(int input) {
+    if (input == Protocol.RESTART) {
+      isRestartRequested = true;
+    } else if (input >= 0 && input < DIRECTIONS.length) {
+      turns.offer(DIRECTIONS[input], simulation.getLastDirection(), System.nanoTime());
+    }
+  }
+
+  /**
+   * Advances the game by one tick and queues what changed to be sent to the client. This doesn't
+   * wait for the client.
+   */
+  synchronized void tick() {
+    if (isClosed) {
+      return;
+    }
+    int length;
+    if (isRestartRequested) {
+      isRestartRequested = false;
+      simulation.reset(seeds.nextLong());
+      direction = simulation.getLastDirection();
+      turns.clear();
+      length = encoder.encodeStart(simulation);
+    } else {
+      // one queued turn per tick
+      Direction turn = turns.poll();
+      if (turn != null) {
+        direction = turn;
+      }
+      simulation.step(direction);
+      length = encoder.encodeTick(simulation);
+    }
+    if (length > 0) {
+      queue(encoder.getBuffer(), length);
+    }
+  }
+
+  private void queue(byte[] bytes, int length) {
+    boolean isTooSlow;
+    synchronized (outputLock) {
+      long now = System.nanoTime();
+      isTooSlow = pendingLength > 0 && now - pendingSince > MAXIMUM_LAG;
+      if (!isTooSlow) {
+        if (pendingLength == 0) {
+          pendingSince = now;
+        }
+        if (pendingLength + length > pending.length) {
+          byte[] newPending = new byte[Math.max(pendingLength + length, pending.length * 2)];
+          System.arraycopy(pending, 0, newPending, 0, pendingLength);
+          pending = newPending;
+        }
+        System.arraycopy(bytes, 0, pending, pendingLength, length);
+        pendingLength += length;
+        outputLock.notify();
+      }
+    }
+    if (isTooSlow) {
+      // the client has stopped reading, and the changes can't be skipped
+      close();
+    }
+  }
+
+  /**
+   * @return if the client has disconnected
+   */
+  boolean isClosed() {
+    return isClosed;
+  }
+
+  /**
+   * Disconnects the client.
+   */
+  void close() {
+    isClosed = true;
+    synchronized (outputLock) {
+      outputLock.notify();
+    }
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // nothing more to do
+    }
+  }
+}
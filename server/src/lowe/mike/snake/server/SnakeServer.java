@@ -0,0 +1,201 @@
+package lowe.mike.snake.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lowe.mike.snake.net.Protocol;
+import lowe.mike.snake.world.BoardSize;
+import lowe.mike.snake.world.Level;
+
+/**
+ * Headless server that plays a game for each connected client, ticking every game together at
+ * the fixed rate of the level. Clients send the direction to turn to, and after each tick are sent
+ * only what changed in their game.
+ * <p>
+ * Options are given as {@code --name value} pairs, for example:
+ * <pre>
+ * --port 7777 --size 20 --level 5 --bind 127.0.0.1
+ * </pre>
+ *
+ * @author Mike Lowe
+ */
+public final class SnakeServer {
+
+  private final List<Session> sessions = new CopyOnWriteArrayList<Session>();
+  private final ServerSocket serverSocket;
+  private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+  private final int size;
+  private final int level;
+
+  /**
+   * Creates a new {@code SnakeServer} instance, listening on the given port.
+   *
+   * @param bindAddress the address to listen on, or {@code null} for every address
+   * @param port the port to listen on, or {@code 0} for any free port
+   * @param size the number of cells along each side of the board
+   * @param level the level the games are played in
+   * @throws IOException if the port can't be listened on
+   * @throws IllegalArgumentException if the size or level isn't valid
+   */
+  public SnakeServer(InetAddress bindAddress, int port, int size, int level) throws IOException {
+    if (size < BoardSize.MINIMUM || size > BoardSize.MAXIMUM) {
+      throw new IllegalArgumentException("Size must be between " + BoardSize.MINIMUM + " and " +
+          BoardSize.MAXIMUM);
+    }
+    if (level < Level.MINIMUM || level > Level.MAXIMUM) {
+      throw new IllegalArgumentException("Level must be between " + Level.MINIMUM + " and " +
+          Level.MAXIMUM);
+    }
+    this.serverSocket = new ServerSocket(port, 0, bindAddress);
+    this.size = size;
+    this.level = level;
+  }
+
+  public static void main(String[] args) throws IOException {
+    InetAddress bindAddress = null;
+    int port = Protocol.DEFAULT_PORT;
+    int size = BoardSize.DEFAULT;
+    int level = Level.MINIMUM;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--bind":
+          bindAddress = InetAddress.getByName(args[i + 1]);
+          break;
+        case "--port":
+          port = Integer.parseInt(args[i + 1]);
+          break;
+        case "--size":
+          size = Integer.parseInt(args[i + 1]);
+          break;
+        case "--level":
+          level = Integer.parseInt(args[i + 1]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+    SnakeServer server;
+    try {
+      server = new SnakeServer(bindAddress, port, size, level);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+      return;
+    }
+    System.out.println("Listening on port " + server.getPort());
+    server.run();
+  }
+
+  /**
+   * @return the port being listened on
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Starts ticking and accepts clients until {@link #close()} is called. This blocks, so should be
+   * run on its own thread when embedded.
+   */
+  public void run() {
+    long tickInterval = (long) (Level.getTickInterval(level) * 1e9);
+    ticker.scheduleAtFixedRate(new Runnable() {
+
+      @Override
+      public void run() {
+        tick();
+      }
+
+    }, tickInterval, tickInterval, TimeUnit.NANOSECONDS);
+    try {
+      while (!serverSocket.isClosed()) {
+        Socket socket = serverSocket.accept();
+        try {
+          accept(socket);
+        } catch (IOException | RuntimeException e) {
+          // one client failing to start mustn't stop others connecting
+          System.err.println("Couldn't start a session for " + socket.getRemoteSocketAddress() +
+              ": " + e);
+          closeQuietly(socket);
+        }
+      }
+    } catch (IOException e) {
+      // the server socket has been closed
+    } finally {
+      close();
+    }
+  }
+
+  private void accept(Socket socket) throws IOException {
+    final Session session = new Session(socket, size, level);
+    String name = "session-" + socket.getRemoteSocketAddress();
+    startThread(new Runnable() {
+
+      @Override
+      public void run() {
+        session.readInput();
+      }
+
+    }, name + "-reader");
+    startThread(new Runnable() {
+
+      @Override
+      public void run() {
+        session.writeOutput();
+      }
+
+    }, name + "-writer");
+    sessions.add(session);
+  }
+
+  private static void startThread(Runnable runnable, String name) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // nothing more to do
+    }
+  }
+
+  private void tick() {
+    for (Session session : sessions) {
+      try {
+        session.tick();
+      } catch (RuntimeException e) {
+        // an exception would stop the ticker, and with it every other game
+        System.err.println("Closing a session that failed to tick: " + e);
+        session.close();
+      }
+      if (session.isClosed()) {
+        sessions.remove(session);
+      }
+    }
+  }
+
+  /**
+   * Stops the server and disconnects every client.
+   */
+  public void close() {
+    ticker.shutdownNow();
+    try {
+      serverSocket.close();
+    } catch (IOException e) {
+      // nothing more to do
+    }
+    for (Session session : sessions) {
+      session.close();
+    }
+    sessions.clear();
+  }
+}
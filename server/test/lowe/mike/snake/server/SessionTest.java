@@ -0,0 +1,192 @@
+package lowe.mike.snake.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Random;
+import lowe.mike.snake.net.GameClient;
+import lowe.mike.snake.net.Protocol;
+import lowe.mike.snake.net.RemoteGameState;
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.Simulation;
+import lowe.mike.snake.world.BoardSize;
+import lowe.mike.snake.world.Level;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Plays games in a {@link Session} connected to a {@link GameClient} on the loopback address,
+ * checking that the {@link RemoteGameState} the client follows stays the same as a local {@link
+ * Simulation} started from the same seed and given the same turns.
+ * <p>
+ * The test ticks the {@link Session} itself and waits for each tick to arrive before the next, so
+ * the turns are made on known ticks however fast the machine is.
+ *
+ * @author Mike Lowe
+ */
+public final class SessionTest {
+
+  private static final int SIZE = BoardSize.MINIMUM;
+  private static final int LEVEL = Level.MAXIMUM;
+  private static final int TICKS_TO_CHECK = 2000;
+  // only guards against hanging, as nothing here depends on how long a tick takes
+  private static final long TIMEOUT_MILLIS = 10000L;
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private ServerSocket serverSocket;
+  private GameClient client;
+  private Session session;
+
+  @Before
+  public void setUp() throws IOException, InterruptedException {
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    serverSocket = new ServerSocket(0, 0, loopback);
+    client = new GameClient(loopback.getHostAddress() + ":" + serverSocket.getLocalPort());
+    session = new Session(serverSocket.accept(), SIZE, LEVEL);
+    startThread(new Runnable() {
+
+      @Override
+      public void run() {
+        session.readInput();
+      }
+
+    }, "session-reader");
+    startThread(new Runnable() {
+
+      @Override
+      public void run() {
+        session.writeOutput();
+      }
+
+    }, "session-writer");
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!client.isConnected()) {
+      assertTrue("Timed out connecting", System.currentTimeMillis() < deadline);
+      Thread.sleep(1L);
+    }
+  }
+
+  private static void startThread(Runnable runnable, String name) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    client.close();
+    session.close();
+    serverSocket.close();
+  }
+
+  @Test
+  public void remoteStateMatchesLocalSimulation() throws InterruptedException {
+    RemoteGameState remote = new RemoteGameState();
+    Simulation local = null;
+    Random random = new Random(1L);
+    int ticksChecked = 0;
+    while (ticksChecked < TICKS_TO_CHECK) {
+      if (local == null) {
+        session.tick();
+        awaitStart(remote);
+        local = new Simulation(SIZE, SIZE, LEVEL, remote.getSeed());
+        assertSame(local, remote);
+        continue;
+      }
+      Direction turn = null;
+      if (random.nextInt(4) == 0) {
+        turn = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+        if (turn == local.getLastDirection() || turn.isOpposite(local.getLastDirection())) {
+          turn = null;
+        } else {
+          // given straight to the session, so it is certain to be made on the next tick
+          session.handleInput(turn.ordinal());
+        }
+      }
+      session.tick();
+      local.step(turn);
+      awaitTick(remote, local.getTicks(), local.isSnakeDead());
+      assertSame(local, remote);
+      ticksChecked++;
+      if (local.isSnakeDead() || local.isBoardComplete()) {
+        session.handleInput(Protocol.RESTART);
+        remote.restart();
+        local = null;
+      }
+    }
+  }
+
+  @Test
+  public void inputSentByClientTurnsTheSnake() throws InterruptedException {
+    RemoteGameState remote = new RemoteGameState();
+    session.tick();
+    awaitStart(remote);
+    // the snake starts moving right, so can turn up straight away
+    assertEquals(Direction.RIGHT, remote.getLastDirection());
+    client.sendDirection(Direction.UP);
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (remote.getLastDirection() != Direction.UP) {
+      assertTrue("Timed out waiting for the turn", System.currentTimeMillis() < deadline);
+      assertFalse("Snake died before turning", remote.isSnakeDead());
+      // the input arrives on another thread, so keep ticking until it has been made
+      Thread.sleep(1L);
+      session.tick();
+      awaitTick(remote, remote.getTicks() + 1, false);
+    }
+  }
+
+  private void awaitStart(RemoteGameState remote) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!remote.isStarted()) {
+      assertTrue("Timed out waiting for the game to start",
+          System.currentTimeMillis() < deadline);
+      assertFalse("Disconnected", client.isClosed());
+      if (!client.poll(remote)) {
+        Thread.sleep(1L);
+      }
+    }
+  }
+
+  private void awaitTick(RemoteGameState remote, long ticks, boolean isSnakeDead)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    // dying doesn't move the snake, so isn't counted as a tick
+    while (isSnakeDead ? !remote.isSnakeDead() : remote.getTicks() < ticks) {
+      assertTrue("Timed out waiting for tick " + ticks, System.currentTimeMillis() < deadline);
+      assertFalse("Disconnected", client.isClosed());
+      if (!client.poll(remote)) {
+        Thread.sleep(1L);
+      }
+    }
+  }
+
+  private static void assertSame(Simulation local, RemoteGameState remote) {
+    String tick = "at tick " + local.getTicks();
+    assertEquals("Ticks", local.getTicks(), remote.getTicks());
+    assertEquals("Length " + tick, local.getLength(), remote.getLength());
+    for (int i = 0; i < local.getLength(); i++) {
+      assertEquals("Body part " + i + " " + tick, local.getBodyPartCell(i),
+          remote.getBodyPartCell(i));
+    }
+    if (!local.isSnakeDead()) {
+      // the client follows the direction from the head's moves, and dying isn't a move
+      assertEquals("Direction " + tick, local.getLastDirection(), remote.getLastDirection());
+    }
+    assertEquals("Food " + tick, local.getFoodCell(), remote.getFoodCell());
+    assertEquals("Bonus food showing " + tick, local.isBonusFoodShowing(),
+        remote.isBonusFoodShowing());
+    if (local.isBonusFoodShowing()) {
+      assertEquals("Bonus food " + tick, local.getBonusFoodCell(), remote.getBonusFoodCell());
+      assertEquals("Bonus food ticks " + tick, local.getBonusFoodTicksRemaining(),
+          remote.getBonusFoodTicksRemaining());
+    }
+    assertEquals("Score " + tick, local.getScore(), remote.getScore());
+    assertEquals("Snake dead " + tick, local.isSnakeDead(), remote.isSnakeDead());
+    assertEquals("Board complete " + tick, local.isBoardComplete(), remote.isBoardComplete());
+  }
+}
@@ -0,0 +1,338 @@
+package lowe.mike.snake.simulator;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import lowe.mike.snake.ai.AutopilotController;
+import lowe.mike.snake.ai.Controller;
+import lowe.mike.snake.ai.GreedyController;
+import lowe.mike.snake.ai.HamiltonianController;
+import lowe.mike.snake.simulation.Board;
+import lowe.mike.snake.simulation.Direction;
+import lowe.mike.snake.simulation.MultiSnakeSimulation;
+import lowe.mike.snake.simulation.Simulation;
+import lowe.mike.snake.simulation.SplitMixRandom;
+
+/**
+ * Plays a batch of headless games in parallel, each with its own seed and {@link Controller}, and
+ * reports throughput along with the distribution of scores and game lengths.
+ * <p>
+ * Options are given as {@code --name value} pairs, for example:
+ * <pre>
+ * --games 10000 --seed 1 --controller greedy --size 20 --level 5 --max-ticks 1000000
+ * --bonus-interval 5 --bonus-ticks 20 --threads 8
+ * </pre>
+ * The controller is one of {@code greedy}, {@code autopilot}, {@code hamiltonian} or the fully
+ * qualified name of a {@link Controller} with a public no argument constructor.
+ * <p>
+ * Given more than one snake, each game is played by a {@link MultiSnakeSimulation} instead, until
+ * every snake has died or the maximum number of ticks has been played:
+ * <pre>
+ * --games 8 --snakes 1000 --food 200 --size 160 --max-ticks 10000
+ * </pre>
+ * Controllers only play a single snake, so each snake carries on ahead, turning at random now and
+ * then, and away from any snake in its way. The score is then the food eaten by every snake.
+ *
+ * @author Mike Lowe
+ */
+public final class BatchSimulator {
+
+  // number of games each task plays before it is no longer worth splitting
+  private static final int GAMES_PER_TASK = 16;
+  // chance out of this of a snake in a multi-snake game turning at random on each tick
+  private static final int RANDOM_TURN_ODDS = 8;
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private int games = 1000;
+  private long startSeed = 1L;
+  private String controllerName = "greedy";
+  private int size = Simulation.DEFAULT_COLUMNS;
+  private int level = 5;
+  private long maximumTicks = 1000000L;
+  private int bonusFoodAppearanceInterval = Simulation.DEFAULT_BONUS_FOOD_APPEARANCE_INTERVAL;
+  private int bonusFoodTicks = Simulation.DEFAULT_BONUS_FOOD_TICKS;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private int snakes = 1;
+  private int food = 1;
+
+  private int[] scores;
+  private long[] ticks;
+  private boolean[] boardsComplete;
+  private long[] snakeMoves;
+
+  private BatchSimulator() {
+  }
+
+  public static void main(String[] args) {
+    BatchSimulator simulator = new BatchSimulator();
+    try {
+      simulator.parseOptions(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+    }
+    simulator.run();
+  }
+
+  private void parseOptions(String[] args) {
+    for (int i = 0; i < args.length; i += 2) {
+      if (i + 1 == args.length) {
+        throw new IllegalArgumentException("Missing value for " + args[i]);
+      }
+      String name = args[i];
+      String value = args[i + 1];
+      switch (name) {
+        case "--games":
+          games = Integer.parseInt(value);
+          break;
+        case "--seed":
+          startSeed = Long.parseLong(value);
+          break;
+        case "--controller":
+          controllerName = value;
+          break;
+        case "--size":
+          size = Integer.parseInt(value);
+          break;
+        case "--level":
+          level = Integer.parseInt(value);
+          break;
+        case "--max-ticks":
+          maximumTicks = Long.parseLong(value);
+          break;
+        case "--bonus-interval":
+          bonusFoodAppearanceInterval = Integer.parseInt(value);
+          break;
+        case "--bonus-ticks":
+          bonusFoodTicks = Integer.parseInt(value);
+          break;
+        case "--threads":
+          threads = Integer.parseInt(value);
+          break;
+        case "--snakes":
+          snakes = Integer.parseInt(value);
+          break;
+        case "--food":
+          food = Integer.parseInt(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + name);
+      }
+    }
+    if (games < 1 || threads < 1 || maximumTicks < 1) {
+      throw new IllegalArgumentException("Games, threads and max ticks must be positive");
+    }
+    if (snakes < 1) {
+      throw new IllegalArgumentException("Snakes must be positive");
+    }
+    // fail fast on bad settings rather than inside every task
+    if (isMultiSnake()) {
+      createMultiSnakeSimulation(startSeed);
+    } else {
+      createSimulation(startSeed);
+      createController();
+    }
+  }
+
+  private boolean isMultiSnake() {
+    return snakes > 1;
+  }
+
+  private void run() {
+    scores = new int[games];
+    ticks = new long[games];
+    boardsComplete = new boolean[games];
+    snakeMoves = new long[games];
+
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    long startTime = System.nanoTime();
+    pool.invoke(new GamesTask(0, games));
+    double seconds = (System.nanoTime() - startTime) / 1e9;
+    pool.shutdown();
+
+    report(seconds);
+  }
+
+  private Simulation createSimulation(long seed) {
+    Simulation simulation = new Simulation(size, size, level, seed);
+    simulation.setBonusFoodAppearanceInterval(bonusFoodAppearanceInterval);
+    simulation.setBonusFoodTicks(bonusFoodTicks);
+    simulation.reset(seed);
+    return simulation;
+  }
+
+  private MultiSnakeSimulation createMultiSnakeSimulation(long seed) {
+    return new MultiSnakeSimulation(size, size, snakes, food, seed);
+  }
+
+  private Controller createController() {
+    if ("greedy".equals(controllerName)) {
+      return new GreedyController();
+    }
+    if ("autopilot".equals(controllerName)) {
+      return new AutopilotController();
+    }
+    if ("hamiltonian".equals(controllerName)) {
+      return new HamiltonianController();
+    }
+    try {
+      return (Controller) Class.forName(controllerName).newInstance();
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new IllegalArgumentException("Unknown controller " + controllerName, e);
+    }
+  }
+
+  /**
+   * Plays a range of games, splitting the range between workers until it is small enough to play
+   * directly. Each game writes its results into its own slot, so no locking is needed.
+   */
+  private final class GamesTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+
+    GamesTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > GAMES_PER_TASK) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new GamesTask(from, middle), new GamesTask(middle, to));
+        return;
+      }
+      if (isMultiSnake()) {
+        playMultiSnakeGames();
+      } else {
+        playGames();
+      }
+    }
+
+    private void playGames() {
+      // one simulation and controller are reused for every game in the range
+      Simulation simulation = createSimulation(startSeed + from);
+      Controller controller = createController();
+      for (int game = from; game < to; game++) {
+        simulation.reset(startSeed + game);
+        controller.reset(simulation);
+        while (!simulation.isSnakeDead() && !simulation.isBoardComplete() &&
+            simulation.getTicks() < maximumTicks) {
+          simulation.step(controller.getDirection(simulation));
+        }
+        scores[game] = simulation.getScore();
+        ticks[game] = simulation.getTicks();
+        boardsComplete[game] = simulation.isBoardComplete();
+      }
+    }
+
+    private void playMultiSnakeGames() {
+      MultiSnakeSimulation simulation = createMultiSnakeSimulation(startSeed + from);
+      SplitMixRandom random = new SplitMixRandom(startSeed + from);
+      for (int game = from; game < to; game++) {
+        simulation.reset(startSeed + game);
+        random.setSeed(startSeed + game);
+        long moves = 0L;
+        while (simulation.getAliveCount() > 0 && simulation.getTicks() < maximumTicks) {
+          steer(simulation, random);
+          moves += simulation.getAliveCount();
+          simulation.step();
+        }
+        int score = 0;
+        for (int snake = 0; snake < snakes; snake++) {
+          score += simulation.getScore(snake);
+        }
+        scores[game] = score;
+        ticks[game] = simulation.getTicks();
+        snakeMoves[game] = moves;
+      }
+    }
+  }
+
+  private static void steer(MultiSnakeSimulation simulation, SplitMixRandom random) {
+    Board board = simulation.getBoard();
+    for (int i = 0; i < simulation.getAliveCount(); i++) {
+      int snake = simulation.getAliveSnake(i);
+      int head = simulation.getHeadCell(snake);
+      Direction direction = simulation.getLastDirection(snake);
+      if (random.nextInt(RANDOM_TURN_ODDS) == 0) {
+        direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+      }
+      // take the first direction round from the one wanted that doesn't run into a snake
+      for (int j = 0; j < DIRECTIONS.length; j++) {
+        Direction candidate = DIRECTIONS[(direction.ordinal() + j) % DIRECTIONS.length];
+        if (simulation.canTurn(snake, candidate) &&
+            !board.isSnakeOccupying(board.getNeighbour(head, candidate))) {
+          direction = candidate;
+          break;
+        }
+      }
+      simulation.setDirection(snake, direction);
+    }
+  }
+
+  private void report(double seconds) {
+    long totalTicks = 0L;
+    long totalScore = 0L;
+    long totalSnakeMoves = 0L;
+    int completeCount = 0;
+    for (int game = 0; game < games; game++) {
+      totalTicks += ticks[game];
+      totalScore += scores[game];
+      totalSnakeMoves += snakeMoves[game];
+      if (boardsComplete[game]) {
+        completeCount++;
+      }
+    }
+    int[] sortedScores = scores.clone();
+    long[] sortedTicks = ticks.clone();
+    Arrays.sort(sortedScores);
+    Arrays.sort(sortedTicks);
+
+    print("games            %d (seeds %d to %d) on %d threads", games, startSeed,
+        startSeed + games - 1, threads);
+    if (isMultiSnake()) {
+      print("board            %dx%d, %d snakes, %d food", size, size, snakes, food);
+    } else {
+      print("controller       %s", controllerName);
+      print("board            %dx%d, level %d, bonus every %d for %d ticks", size, size, level,
+          bonusFoodAppearanceInterval, bonusFoodTicks);
+    }
+    print("time             %.3f s", seconds);
+    print("games/sec        %.1f", games / seconds);
+    print("ticks/sec        %.0f", totalTicks / seconds);
+    if (isMultiSnake()) {
+      print("snake moves/sec  %.0f", totalSnakeMoves / seconds);
+    } else {
+      print("boards complete  %d", completeCount);
+    }
+    print("score            min %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d",
+        sortedScores[0], (double) totalScore / games, percentile(sortedScores, 50),
+        percentile(sortedScores, 90), percentile(sortedScores, 99),
+        sortedScores[games - 1]);
+    print("length (ticks)   min %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d",
+        sortedTicks[0], (double) totalTicks / games, percentile(sortedTicks, 50),
+        percentile(sortedTicks, 90), percentile(sortedTicks, 99), sortedTicks[games - 1]);
+  }
+
+  private static int percentile(int[] sorted, int percent) {
+    return sorted[percentileIndex(sorted.length, percent)];
+  }
+
+  private static long percentile(long[] sorted, int percent) {
+    return sorted[percentileIndex(sorted.length, percent)];
+  }
+
+  // nearest rank
+  private static int percentileIndex(int count, int percent) {
+    return Math.max(0, (int) Math.ceil(count * percent / 100.0) - 1);
+  }
+
+  private static void print(String format, Object... args) {
+    System.out.println(String.format(Locale.ENGLISH, format, args));
+  }
+}
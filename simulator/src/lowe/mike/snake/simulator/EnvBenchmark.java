@@ -0,0 +1,130 @@
+package lowe.mike.snake.simulator;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import lowe.mike.snake.env.BatchedSnakeEnv;
+import lowe.mike.snake.simulation.SplitMixRandom;
+
+/**
+ * Measures how fast a {@link BatchedSnakeEnv} steps, both on its own and when the observations are
+ * written out after every step as a training loop would, so the cost of each can be compared.
+ * <p>
+ * Options are given as {@code --name value} pairs, for example:
+ * <pre>
+ * --envs 256 --size 20 --steps 20000000 --seed 1
+ * </pre>
+ * The number of steps is the total over every environment. The actions are random, so episodes are
+ * short and are reset often.
+ *
+ * @author Mike Lowe
+ */
+public final class EnvBenchmark {
+
+  private static final int LEVEL = 5;
+  private static final int ACTION_COUNT = 4;
+  // rounds of each measurement, where only the last is reported and the rest warm up
+  private static final int ROUNDS = 3;
+  // number of batches of actions cycled through, each repeated for a few steps
+  private static final int ACTION_BATCHES = 64;
+  private static final int STEPS_PER_ACTION = 8;
+
+  private int envs = 256;
+  private int size = 20;
+  private long steps = 20000000L;
+  private long seed = 1L;
+
+  private EnvBenchmark() {
+  }
+
+  public static void main(String[] args) {
+    EnvBenchmark benchmark = new EnvBenchmark();
+    try {
+      benchmark.parseOptions(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+    }
+    benchmark.run();
+  }
+
+  private void parseOptions(String[] args) {
+    for (int i = 0; i < args.length; i += 2) {
+      if (i + 1 == args.length) {
+        throw new IllegalArgumentException("Missing value for " + args[i]);
+      }
+      String name = args[i];
+      String value = args[i + 1];
+      switch (name) {
+        case "--envs":
+          envs = Integer.parseInt(value);
+          break;
+        case "--size":
+          size = Integer.parseInt(value);
+          break;
+        case "--steps":
+          steps = Long.parseLong(value);
+          break;
+        case "--seed":
+          seed = Long.parseLong(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + name);
+      }
+    }
+    if (envs < 1 || steps < envs) {
+      throw new IllegalArgumentException("Envs must be positive, and steps at least envs");
+    }
+  }
+
+  private void run() {
+    BatchedSnakeEnv env = new BatchedSnakeEnv(envs, size, size, LEVEL);
+    int[][] actions = new int[ACTION_BATCHES][envs];
+    SplitMixRandom random = new SplitMixRandom(seed);
+    for (int[] batch : actions) {
+      for (int i = 0; i < envs; i++) {
+        batch[i] = random.nextInt(ACTION_COUNT);
+      }
+    }
+    float[] floatObservations = new float[envs * env.getObservationSize()];
+    ByteBuffer byteObservations = ByteBuffer.allocateDirect(envs * env.getObservationSize());
+    long batchSteps = steps / envs;
+
+    print("envs             %d, %dx%d, %d steps", envs, size, size, batchSteps * envs);
+    for (Observe observe : Observe.values()) {
+      double seconds = 0.0;
+      for (int round = 0; round < ROUNDS; round++) {
+        env.reset(seed);
+        long startTime = System.nanoTime();
+        for (long step = 0L; step < batchSteps; step++) {
+          env.step(actions[(int) (step / STEPS_PER_ACTION % ACTION_BATCHES)]);
+          if (observe == Observe.FLOATS) {
+            env.getObservations(floatObservations, 0);
+          } else if (observe == Observe.BYTES) {
+            byteObservations.clear();
+            env.getObservations(byteObservations);
+          }
+        }
+        seconds = (System.nanoTime() - startTime) / 1e9;
+      }
+      double envSteps = batchSteps * envs;
+      print("%-16s %.1f ns per env step, %.0f env steps/sec", observe.label,
+          seconds * 1e9 / envSteps, envSteps / seconds);
+    }
+  }
+
+  private static void print(String format, Object... args) {
+    System.out.println(String.format(Locale.ENGLISH, format, args));
+  }
+
+  private enum Observe {
+    NOTHING("step"),
+    FLOATS("step + floats"),
+    BYTES("step + bytes");
+
+    private final String label;
+
+    Observe(String label) {
+      this.label = label;
+    }
+  }
+}